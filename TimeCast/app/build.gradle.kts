@@ -42,6 +42,7 @@ dependencies {
     androidTestImplementation(libs.espresso.core)
     implementation("com.google.code.gson:gson:2.10.1")
     implementation("com.google.android.material:material:1.11.0")
+    implementation("androidx.viewpager2:viewpager2:1.1.0")
     implementation("com.kizitonwose.calendar:view:2.3.0")
     
     // Retrofit for API calls
@@ -0,0 +1,60 @@
+package com.example.timecast;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.time.LocalDate;
+
+/**
+ * Scrollable list of all events with a start time, opened at today. See
+ * {@link AgendaAdapter} for how pages are loaded and dropped.
+ */
+public class AgendaActivity extends AppCompatActivity {
+    private AgendaAdapter agendaAdapter;
+    private boolean paused;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_agenda);
+
+        RecyclerView agendaList = findViewById(R.id.agendaList);
+        agendaList.setLayoutManager(new LinearLayoutManager(this));
+        agendaList.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
+        agendaAdapter = new AgendaAdapter(this, event -> {
+            Intent intent = new Intent(AgendaActivity.this, EventDetailsActivity.class);
+            intent.putExtra("event", event);
+            startActivity(intent);
+        });
+        agendaList.setAdapter(agendaAdapter);
+        agendaAdapter.start(LocalDate.now());
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        paused = true;
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Events may have been edited in the details screen meanwhile.
+        if (paused) {
+            paused = false;
+            LocalDate day = agendaAdapter.firstVisibleDay();
+            agendaAdapter.start(day != null ? day : LocalDate.now());
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        agendaAdapter.cancel();
+        super.onDestroy();
+    }
+}
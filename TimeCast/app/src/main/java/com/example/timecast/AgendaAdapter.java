@@ -0,0 +1,360 @@
+package com.example.timecast;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.timecast.data.EventLoader;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Rows of the agenda: every event with a start time, in start order, under a header
+ * per day.
+ *
+ * Events are loaded in pages of {@link #PAGE_SIZE} with the keyset queries of
+ * {@link com.example.timecast.data.EventRepository}, starting at a given day. When the
+ * list scrolls within {@link #PREFETCH_DISTANCE} rows of either end, the next page in
+ * that direction is loaded on the loader thread. At most {@link #MAX_PAGES} pages are
+ * held; loading one past that drops the page at the other end, which is loaded again
+ * if the user scrolls back. Memory therefore stays the same however long the history;
+ * with the default {@link com.example.timecast.data.EventStore} the months paged
+ * through are read for the page and not kept either.
+ *
+ * Rows are rebuilt from the pages after each load and applied with DiffUtil, keeping
+ * the row at the top of the screen where it was.
+ */
+public class AgendaAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    private static final int PAGE_SIZE = 50;
+    private static final int MAX_PAGES = 5;
+    private static final int PREFETCH_DISTANCE = 15;
+
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_EVENT = 1;
+
+    public interface OnEventClickListener {
+        void onEventClick(Event event);
+    }
+
+    private final OnEventClickListener onEventClickListener;
+    private final EventLoader forwardLoader;
+    private final EventLoader backwardLoader;
+    private final ArrayDeque<List<Event>> pages = new ArrayDeque<>();
+    private final ArrayList<Row> rows = new ArrayList<>();
+
+    private long anchorMillis;
+    private boolean loadingForward;
+    private boolean loadingBackward;
+    private boolean reachedEnd;
+    private boolean reachedStart;
+    private RecyclerView recyclerView;
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+            // Also called with 0, 0 after a layout changes the visible range.
+            prefetch();
+        }
+    };
+
+    public AgendaAdapter(Context context, OnEventClickListener onEventClickListener) {
+        this.onEventClickListener = onEventClickListener;
+        forwardLoader = new EventLoader(context);
+        backwardLoader = new EventLoader(context);
+    }
+
+    /**
+     * Drops everything loaded and starts again at the first event on or after
+     * {@code day}; earlier events load as the user scrolls up.
+     */
+    public void start(LocalDate day) {
+        cancel();
+        pages.clear();
+        reachedEnd = false;
+        reachedStart = false;
+        anchorMillis = day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int removed = rows.size();
+        rows.clear();
+        notifyItemRangeRemoved(0, removed);
+        loadNext();
+    }
+
+    /**
+     * @return the day of the row at the top of the screen, or null if nothing is shown
+     */
+    public LocalDate firstVisibleDay() {
+        LinearLayoutManager layoutManager = layoutManager();
+        if (layoutManager == null) return null;
+        int first = layoutManager.findFirstVisibleItemPosition();
+        return first == RecyclerView.NO_POSITION ? null : rows.get(first).day;
+    }
+
+    public void cancel() {
+        forwardLoader.cancel();
+        backwardLoader.cancel();
+        loadingForward = false;
+        loadingBackward = false;
+    }
+
+    private void prefetch() {
+        LinearLayoutManager layoutManager = layoutManager();
+        if (layoutManager == null || rows.isEmpty()) return;
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) return;
+
+        if (!loadingForward && !reachedEnd && last >= rows.size() - PREFETCH_DISTANCE) {
+            loadNext();
+        }
+        if (!loadingBackward && !reachedStart && first <= PREFETCH_DISTANCE) {
+            loadPrevious();
+        }
+    }
+
+    private void loadNext() {
+        Event last = pages.isEmpty() ? null : lastOf(pages.peekLast());
+        long startMillis = last == null ? anchorMillis : last.startTime.getTime();
+        String id = last == null ? "" : last.id;
+
+        loadingForward = true;
+        forwardLoader.load(repository -> repository.eventsAfter(startMillis, id, PAGE_SIZE), page -> {
+            loadingForward = false;
+            reachedEnd = page.size() < PAGE_SIZE;
+            if (page.isEmpty()) {
+                // Nothing from the start day on leaves no rows for prefetch() to scroll
+                // from, so go straight to the earlier events.
+                if (pages.isEmpty() && !reachedStart) loadPrevious();
+                return;
+            }
+            pages.addLast(page);
+            if (pages.size() > MAX_PAGES) {
+                pages.removeFirst();
+                reachedStart = false;
+            }
+            applyPages();
+        });
+    }
+
+    private void loadPrevious() {
+        Event first = pages.isEmpty() ? null : pages.peekFirst().get(0);
+        long startMillis = first == null ? anchorMillis : first.startTime.getTime();
+        String id = first == null ? "" : first.id;
+
+        loadingBackward = true;
+        backwardLoader.load(repository -> repository.eventsBefore(startMillis, id, PAGE_SIZE), page -> {
+            loadingBackward = false;
+            reachedStart = page.size() < PAGE_SIZE;
+            if (page.isEmpty()) return;
+            pages.addFirst(page);
+            if (pages.size() > MAX_PAGES) {
+                pages.removeLast();
+                reachedEnd = false;
+            }
+            applyPages();
+        });
+    }
+
+    private static Event lastOf(List<Event> page) {
+        return page.get(page.size() - 1);
+    }
+
+    /**
+     * Rebuilds the rows from the loaded pages and keeps the top row in place, which
+     * matters most when a page is inserted above it.
+     */
+    private void applyPages() {
+        ArrayList<Row> newRows = new ArrayList<>();
+        LocalDate currentDay = null;
+        ZoneId zone = ZoneId.systemDefault();
+        for (List<Event> page : pages) {
+            for (Event event : page) {
+                LocalDate day = event.startTime.toInstant().atZone(zone).toLocalDate();
+                if (!day.equals(currentDay)) {
+                    newRows.add(Row.header(day));
+                    currentDay = day;
+                }
+                newRows.add(Row.event(day, event));
+            }
+        }
+
+        LinearLayoutManager layoutManager = layoutManager();
+        Row anchor = null;
+        int anchorOffset = 0;
+        if (layoutManager != null) {
+            int first = layoutManager.findFirstVisibleItemPosition();
+            if (first != RecyclerView.NO_POSITION) {
+                anchor = rows.get(first);
+                View view = layoutManager.findViewByPosition(first);
+                anchorOffset = view == null ? 0 : view.getTop();
+            }
+        }
+
+        List<Row> oldRows = new ArrayList<>(rows);
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldRows.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newRows.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return oldRows.get(oldPosition).sameItem(newRows.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldRows.get(oldPosition).sameContents(newRows.get(newPosition));
+            }
+        }, false);
+        rows.clear();
+        rows.addAll(newRows);
+        diff.dispatchUpdatesTo(this);
+
+        if (anchor != null) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).sameItem(anchor)) {
+                    layoutManager.scrollToPositionWithOffset(i, anchorOffset);
+                    break;
+                }
+            }
+        }
+    }
+
+    private LinearLayoutManager layoutManager() {
+        return recyclerView == null ? null : (LinearLayoutManager) recyclerView.getLayoutManager();
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView view) {
+        recyclerView = view;
+        view.addOnScrollListener(scrollListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView view) {
+        view.removeOnScrollListener(scrollListener);
+        recyclerView = null;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return rows.get(position).event == null ? TYPE_HEADER : TYPE_EVENT;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == TYPE_HEADER) {
+            return new HeaderHolder(inflater.inflate(R.layout.agenda_day_header, parent, false));
+        }
+        return new EventHolder(inflater.inflate(R.layout.agenda_event_row, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        Row row = rows.get(position);
+        if (holder instanceof HeaderHolder) {
+            ((HeaderHolder) holder).dayText.setText(TimeFormats.dayHeader(row.day));
+            return;
+        }
+        EventHolder eventHolder = (EventHolder) holder;
+        eventHolder.titleText.setText(row.title);
+        String details = row.event.getFormattedTimeRange();
+        if (row.location != null && !row.location.isEmpty()) {
+            details += " · " + row.location;
+        }
+        eventHolder.detailsText.setText(details);
+        eventHolder.itemView.setOnClickListener(v -> onEventClickListener.onEventClick(row.event));
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    /**
+     * A day header when {@link #event} is null, otherwise one event on {@link #day}.
+     *
+     * The fields shown are copied when the row is built: the event object may be shared
+     * with the store and changed in place, and comparing it with itself would hide the
+     * change from DiffUtil.
+     */
+    private static final class Row {
+        final LocalDate day;
+        final Event event;
+        final String title;
+        final String location;
+        final long startMillis;
+        final long endMillis;
+
+        private Row(LocalDate day, Event event) {
+            this.day = day;
+            this.event = event;
+            title = event == null ? null : event.title;
+            location = event == null ? null : event.location;
+            startMillis = event == null || event.startTime == null ? 0 : event.startTime.getTime();
+            endMillis = event == null || event.endTime == null ? 0 : event.endTime.getTime();
+        }
+
+        static Row header(LocalDate day) {
+            return new Row(day, null);
+        }
+
+        static Row event(LocalDate day, Event event) {
+            return new Row(day, event);
+        }
+
+        boolean sameItem(Row other) {
+            if (event == null || other.event == null) {
+                return event == other.event && day.equals(other.day);
+            }
+            return event.id.equals(other.event.id);
+        }
+
+        boolean sameContents(Row other) {
+            if (event == null || other.event == null) return sameItem(other);
+            return Objects.equals(title, other.title)
+                    && Objects.equals(location, other.location)
+                    && startMillis == other.startMillis
+                    && endMillis == other.endMillis;
+        }
+    }
+
+    private static final class HeaderHolder extends RecyclerView.ViewHolder {
+        final TextView dayText;
+
+        HeaderHolder(View itemView) {
+            super(itemView);
+            dayText = itemView.findViewById(R.id.agendaDayText);
+        }
+    }
+
+    private static final class EventHolder extends RecyclerView.ViewHolder {
+        final TextView titleText;
+        final TextView detailsText;
+
+        EventHolder(View itemView) {
+            super(itemView);
+            titleText = itemView.findViewById(R.id.agendaEventTitle);
+            detailsText = itemView.findViewById(R.id.agendaEventDetails);
+        }
+    }
+}
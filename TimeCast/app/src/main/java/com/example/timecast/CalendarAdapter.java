@@ -5,21 +5,59 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Objects;
 
 public class CalendarAdapter extends RecyclerView.Adapter<CalendarViewHolder>{
 
-    private final ArrayList<String> daysOfMonth;
     private final OnItemListener onItemListener;
-    private final HashMap<String, String> taskMap;
+    private MonthModel model;
+    /** Reused for every cell's task text. */
+    private final StringBuilder cellText = new StringBuilder();
 
-    public CalendarAdapter(ArrayList<String> daysOfMonth, OnItemListener onItemListener, HashMap<String, String> taskMap) {
-        this.daysOfMonth = daysOfMonth;
+    public CalendarAdapter(OnItemListener onItemListener) {
         this.onItemListener = onItemListener;
-        this.taskMap = taskMap;
+    }
+
+    /**
+     * Shows a new model, or nothing for null. Cells are matched by position, so when
+     * only some days changed just those cells are rebound.
+     */
+    public void submit(MonthModel newModel) {
+        MonthModel oldModel = model;
+        model = newModel;
+        if (oldModel == null || newModel == null) {
+            notifyDataSetChanged();
+            return;
+        }
+        DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return MonthModel.CELL_COUNT;
+            }
+
+            @Override
+            public int getNewListSize() {
+                return MonthModel.CELL_COUNT;
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return oldPosition == newPosition;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldModel.dayLabels[oldPosition].equals(newModel.dayLabels[newPosition])
+                        && Objects.equals(oldModel.daySummary(oldPosition), newModel.daySummary(newPosition));
+            }
+        }, false).dispatchUpdatesTo(this);
+    }
+
+    public MonthModel getModel() {
+        return model;
     }
 
     @NonNull
@@ -35,23 +73,30 @@ public class CalendarAdapter extends RecyclerView.Adapter<CalendarViewHolder>{
 
     @Override
     public void onBindViewHolder(@NonNull CalendarViewHolder holder, int position) {
-        holder.dayOfMonth.setText(daysOfMonth.get(position));
-
-        String day = daysOfMonth.get(position);
-        holder.dayOfMonth.setText(day);
+        holder.dayOfMonth.setText(model.dayLabels[position]);
 
-        if (!day.equals("")) {
-            String dateKey = day; // e.g., "15"
-            String task = taskMap.getOrDefault(dateKey, "");
-            holder.taskText.setText(task);
-        } else {
+        MonthSummary.DaySummary day = model.daySummary(position);
+        // Outdoor plans depend on the weather, so their days stand out in the grid.
+        holder.dayOfMonth.setTextColor(day != null && day.hasType(MonthSummary.TYPE_OUTDOOR)
+                ? holder.outdoorDayColor : holder.dayColor);
+        if (day == null) {
             holder.taskText.setText("");
+            return;
+        }
+        cellText.setLength(0);
+        for (int i = 0; i < day.titleCount(); i++) {
+            if (i > 0) cellText.append(", ");
+            cellText.append(day.title(i));
+        }
+        if (day.overflow() > 0) {
+            cellText.append("\n+").append(day.overflow()).append(" more");
         }
+        holder.taskText.setText(cellText);
     }
 
     @Override
     public int getItemCount() {
-        return daysOfMonth.size();
+        return model == null ? 0 : MonthModel.CELL_COUNT;
     }
 
     public interface OnItemListener {
@@ -5,6 +5,7 @@ import android.view.View;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 public class CalendarViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
@@ -12,11 +13,16 @@ public class CalendarViewHolder extends RecyclerView.ViewHolder implements View.
     public final TextView dayOfMonth;
     private final CalendarAdapter.OnItemListener onItemListener;
     public final TextView taskText;
+    /** Day number colours: plain, and for days with an outdoor event. */
+    public final int dayColor;
+    public final int outdoorDayColor;
     public CalendarViewHolder(@NonNull View itemView, CalendarAdapter.OnItemListener onItemListener) {
         super(itemView);
         this.dayOfMonth = itemView.findViewById(R.id.cellDayText);
         this.onItemListener = onItemListener;
         this.taskText = itemView.findViewById(R.id.taskText);
+        this.dayColor = dayOfMonth.getCurrentTextColor();
+        this.outdoorDayColor = ContextCompat.getColor(itemView.getContext(), R.color.aquamarine);
         itemView.setOnClickListener(this);
     }
 
@@ -3,14 +3,11 @@ package com.example.timecast;
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.*;
 import androidx.appcompat.app.AppCompatActivity;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import com.example.timecast.data.EventLoader;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import android.app.AlarmManager;
@@ -25,10 +22,6 @@ public class CreationActivity extends AppCompatActivity {
     private Spinner inputType;
     private Button btnSave;
     private Button btnCancel;
-    private ArrayList<Event> eventList = new ArrayList<>();
-    private SharedPreferences prefs;
-    private Gson gson = new Gson();
-    private final String PREF_KEY = "event_data";
     private Calendar dateCalendar = Calendar.getInstance();
     private Calendar startTimeCalendar = Calendar.getInstance();
     private Calendar endTimeCalendar = Calendar.getInstance();
@@ -45,7 +38,6 @@ public class CreationActivity extends AppCompatActivity {
         setupSpinner();
         setupDatePicker();
         setupTimePickers();
-        loadEvents();
 
         btnSave.setOnClickListener(v -> saveEvent());
     }
@@ -59,7 +51,6 @@ public class CreationActivity extends AppCompatActivity {
         inputType = findViewById(R.id.inputType);
         inputLocation = findViewById(R.id.inputLocation);
         btnSave = findViewById(R.id.btnSave);
-        prefs = getSharedPreferences("TimeCastPrefs", MODE_PRIVATE);
         btnCancel = findViewById(R.id.cancel_button);
         inputReminder = findViewById(R.id.inputReminder);
 
@@ -175,69 +166,19 @@ public class CreationActivity extends AppCompatActivity {
             // Create new event
             Event newEvent = new Event(title, desc, date, startCal.getTime(), endCal.getTime(), type, location);
 
-            // Load existing events
-            String json = prefs.getString(PREF_KEY, null);
-            ArrayList<Event> allEvents = new ArrayList<>();
-            if (json != null) {
-                Type listType = new TypeToken<ArrayList<Event>>(){}.getType();
-                allEvents = gson.fromJson(json, listType);
-            }
-
-            // Check for event conflict
-            if (isConflicting(startCal, endCal)) {
-                Toast.makeText(CreationActivity.this, "Time conflict with another event!", Toast.LENGTH_LONG).show();
-                return;
-            }
-
-            // Add new event
-            allEvents.add(newEvent);
-
-            // Calculate reminder offset
-            int reminderOffsetMinutes = 0;
-            String selectedReminder = inputReminder.getSelectedItem().toString();
-            switch (selectedReminder) {
-                case "5 minutes before": reminderOffsetMinutes = 5; break;
-                case "10 minutes before": reminderOffsetMinutes = 10; break;
-                case "30 minutes before": reminderOffsetMinutes = 30; break;
-                case "1 hour before": reminderOffsetMinutes = 60; break;
-            }
-
-            // Schedule reminder
-            if (reminderOffsetMinutes > 0) {
-                Calendar reminderTime = (Calendar) startCal.clone();
-                reminderTime.add(Calendar.MINUTE, -reminderOffsetMinutes);
-
-                Intent reminderIntent = new Intent(this, ReminderReceiver.class);
-                reminderIntent.putExtra("title", title);
-                reminderIntent.putExtra("desc", desc);
-
-                PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                        this, (int) System.currentTimeMillis(), reminderIntent, PendingIntent.FLAG_IMMUTABLE
-                );
-
-                AlarmManager alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                    if (!alarmManager.canScheduleExactAlarms()) {
-                        Toast.makeText(this, "Cannot schedule exact alarms. Enable permission in settings.", Toast.LENGTH_LONG).show();
-                        Intent intent = new Intent(Settings.ACTION_REQUEST_SCHEDULE_EXACT_ALARM);
-                        startActivity(intent);
-                        return; // Wait until permission is granted before scheduling
-                    }
-                }
-                try {
-                    alarmManager.setExact(AlarmManager.RTC_WAKEUP, reminderTime.getTimeInMillis(), pendingIntent);
-                } catch (SecurityException e) {
-                    Toast.makeText(this, "Permission denied for exact alarm: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                    e.printStackTrace();
-                }
-            }
-
-            // Save all events
-            prefs.edit().putString(PREF_KEY, gson.toJson(allEvents)).apply();
-
-            setResult(RESULT_OK);
-            Toast.makeText(this, "Event saved successfully", Toast.LENGTH_SHORT).show();
-            finish();
+            // Check for event conflict on the loader thread; opening the store can take a while
+            new EventLoader(this).load(
+                    repository -> repository.findConflicts(startCal.getTime(), endCal.getTime(), null).isEmpty(),
+                    free -> {
+                        if (isDestroyed()) return;
+                        if (!free) {
+                            Toast.makeText(CreationActivity.this, "Time conflict with another event!", Toast.LENGTH_LONG).show();
+                            return;
+                        }
+                        if (scheduleReminder(startCal, title, desc)) {
+                            addEvent(newEvent);
+                        }
+                    });
         } catch (Exception e) {
             Log.e("ReminderDebug", "Exception when saving event", e); // log full stacktrace
             Toast.makeText(this, "Error saving event: " + e.getMessage(), Toast.LENGTH_SHORT).show();
@@ -245,30 +186,63 @@ public class CreationActivity extends AppCompatActivity {
         }
     }
 
-    private void loadEvents() {
-        String json = prefs.getString(PREF_KEY, null);
-        if (json != null) {
-            Type type = new TypeToken<ArrayList<Event>>() {}.getType();
-            eventList = gson.fromJson(json, type);
-            if (eventList == null) {
-                eventList = new ArrayList<>();
-            }
-        } else {
-            eventList = new ArrayList<>();
+    /**
+     * @return false if the reminder needs a permission the user has to grant first, in
+     *         which case the event is not saved yet
+     */
+    private boolean scheduleReminder(Calendar startCal, String title, String desc) {
+        // Calculate reminder offset
+        int reminderOffsetMinutes = 0;
+        String selectedReminder = inputReminder.getSelectedItem().toString();
+        switch (selectedReminder) {
+            case "5 minutes before": reminderOffsetMinutes = 5; break;
+            case "10 minutes before": reminderOffsetMinutes = 10; break;
+            case "30 minutes before": reminderOffsetMinutes = 30; break;
+            case "1 hour before": reminderOffsetMinutes = 60; break;
         }
-    }
-
-    private boolean isConflicting(Calendar newStart, Calendar newEnd) {
-        for (Event event : eventList) {
-            Calendar existingStart = Calendar.getInstance();
-            existingStart.setTime(event.startTime);
-            Calendar existingEnd = Calendar.getInstance();
-            existingEnd.setTime(event.endTime);
 
-            if (newStart.before(existingEnd) && newEnd.after(existingStart)) {
-                return true;
+        // Schedule reminder
+        if (reminderOffsetMinutes > 0) {
+            Calendar reminderTime = (Calendar) startCal.clone();
+            reminderTime.add(Calendar.MINUTE, -reminderOffsetMinutes);
+
+            Intent reminderIntent = new Intent(this, ReminderReceiver.class);
+            reminderIntent.putExtra("title", title);
+            reminderIntent.putExtra("desc", desc);
+
+            PendingIntent pendingIntent = PendingIntent.getBroadcast(
+                    this, (int) System.currentTimeMillis(), reminderIntent, PendingIntent.FLAG_IMMUTABLE
+            );
+
+            AlarmManager alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                if (!alarmManager.canScheduleExactAlarms()) {
+                    Toast.makeText(this, "Cannot schedule exact alarms. Enable permission in settings.", Toast.LENGTH_LONG).show();
+                    Intent intent = new Intent(Settings.ACTION_REQUEST_SCHEDULE_EXACT_ALARM);
+                    startActivity(intent);
+                    return false; // Wait until permission is granted before scheduling
+                }
+            }
+            try {
+                alarmManager.setExact(AlarmManager.RTC_WAKEUP, reminderTime.getTimeInMillis(), pendingIntent);
+            } catch (SecurityException e) {
+                Toast.makeText(this, "Permission denied for exact alarm: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                e.printStackTrace();
             }
         }
-        return false;
+
+        return true;
+    }
+
+    private void addEvent(Event newEvent) {
+        new EventLoader(this).load(repository -> {
+            repository.add(newEvent);
+            return true;
+        }, saved -> {
+            if (isDestroyed()) return;
+            setResult(RESULT_OK);
+            Toast.makeText(this, "Event saved successfully", Toast.LENGTH_SHORT).show();
+            finish();
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.example.timecast;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.DragEvent;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.example.timecast.metrics.RenderMetrics;
+
+/**
+ * Day timeline drawn entirely in {@link #onDraw}: half-hour grid lines, time labels and
+ * one block per event.
+ *
+ * The lines and labels are the same for every day, so they come from
+ * {@link GridLayerCache} as one bitmap shared by all timelines and only the blocks are
+ * drawn per frame.
+ *
+ * {@link #setDayLayout} turns a day laid out by {@link EventLayoutEngine} into a small
+ * block model once (minute ranges, columns and label strings); block rectangles are
+ * derived from it whenever the size changes. Switching days therefore costs a single
+ * invalidate instead of inflating and laying out a view per label and per event.
+ *
+ * A tap on a block reports it to the {@link OnEventClickListener}; a long press starts
+ * a drag with the block's {@link Event} as local state, as the old per-event views did.
+ * Blocks, the drag shadow and drag events are handled by {@link EventBlocks}, shared
+ * with {@link WeekGridView}. While a block moves, a {@link DragPreview} shows where the
+ * event would land, snapped to {@link #setSnapMinutes} slots and red if it
+ * conflicts, and a drop reports the snapped start to the {@link OnEventMoveListener}.
+ * The drop position keeps the point where the block was grabbed, so an event no longer
+ * jumps to start at the pointer.
+ */
+public class DayTimelineView extends View {
+    public static final int START_HOUR = 8;
+    public static final int END_HOUR = 20;
+    private static final int LABEL_STEP_MINUTES = 30;
+    private static final int TOTAL_MINUTES = (END_HOUR - START_HOUR) * 60;
+
+    /** Vertical scale, same as the old TextView timeline. */
+    private static final float DP_PER_MINUTE = 1f;
+
+    public interface OnEventClickListener {
+        void onEventClick(Event event);
+    }
+
+    public interface OnEventMoveListener {
+        /**
+         * @param startMinute new start in minutes since midnight, snapped to the slot grid
+         */
+        void onEventMove(Event event, int startMinute);
+    }
+
+    private final Paint gridPaint = new Paint();
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final GestureDetector gestureDetector;
+
+    private final float density;
+    private final float pxPerMinute;
+    private final float topInset;
+    private final float gutterWidth;
+    private final float blockMargin;
+    private final String[] labels;
+
+    private final EventBlocks eventBlocks;
+    private EventLayoutEngine.DayLayout dayLayout;
+    private int snapMinutes = DragPreview.DEFAULT_SNAP_MINUTES;
+    private OnEventClickListener onEventClickListener;
+    private OnEventMoveListener onEventMoveListener;
+
+    public DayTimelineView(Context context) {
+        this(context, null);
+    }
+
+    public DayTimelineView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public DayTimelineView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        density = getResources().getDisplayMetrics().density;
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+        pxPerMinute = DP_PER_MINUTE * density;
+        blockMargin = 4 * density;
+
+        gridPaint.setColor(Color.LTGRAY);
+        gridPaint.setStrokeWidth(Math.max(1f, density / 2));
+
+        labelPaint.setColor(Color.GRAY);
+        labelPaint.setTextSize(12 * scaledDensity);
+
+        labels = new String[TOTAL_MINUTES / LABEL_STEP_MINUTES + 1];
+        for (int i = 0; i < labels.length; i++) {
+            int minutes = START_HOUR * 60 + i * LABEL_STEP_MINUTES;
+            labels[i] = TimeFormats.clock(minutes);
+        }
+        gutterWidth = labelPaint.measureText("00:00") + 16 * density;
+        // Leave room for the first label, which is centred on the top grid line.
+        topInset = 8 * density + labelPaint.getTextSize() / 2;
+        eventBlocks = new EventBlocks(this, 6 * density, 3 * density);
+
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(MotionEvent e) {
+                EventBlocks.Block block = eventBlocks.blockAt(e.getX(), e.getY());
+                if (block != null && onEventClickListener != null) {
+                    onEventClickListener.onEventClick(block.event);
+                }
+                performClick();
+                return true;
+            }
+
+            @Override
+            public void onLongPress(MotionEvent e) {
+                eventBlocks.startDrag(e, pxPerMinute);
+            }
+        });
+    }
+
+    public void setOnEventClickListener(OnEventClickListener listener) {
+        onEventClickListener = listener;
+    }
+
+    public void setOnEventMoveListener(OnEventMoveListener listener) {
+        onEventMoveListener = listener;
+    }
+
+    /**
+     * Sets the slot size dragged events snap to, 15 minutes by default.
+     */
+    public void setSnapMinutes(int minutes) {
+        snapMinutes = minutes;
+    }
+
+    /**
+     * Replaces the events shown with a day computed by {@link EventLayoutEngine}.
+     * Events outside {@link #START_HOUR}-{@link #END_HOUR} are skipped and ones running
+     * past the end are cut off there.
+     */
+    public void setDayLayout(EventLayoutEngine.DayLayout layout) {
+        dayLayout = layout;
+        eventBlocks.clear();
+        for (int i = 0; i < layout.size(); i++) {
+            int start = layout.startMinute[i] - START_HOUR * 60;
+            int end = Math.min(layout.endMinute[i] - START_HOUR * 60, TOTAL_MINUTES);
+            if (start < 0 || start > TOTAL_MINUTES || end <= start) continue;
+
+            eventBlocks.add(layout.events[i], 0, start, end, layout.column[i], layout.columnCount[i]);
+        }
+        layoutBlocks();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int height = (int) Math.ceil(topInset * 2 + TOTAL_MINUTES * pxPerMinute);
+        setMeasuredDimension(
+                getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutBlocks();
+    }
+
+    private void layoutBlocks() {
+        float left = gutterWidth + blockMargin;
+        float width = getWidth() - blockMargin - left;
+        for (EventBlocks.Block block : eventBlocks.blocks) {
+            float columnWidth = width / block.columnCount;
+            float blockLeft = left + block.column * columnWidth;
+            // Side-by-side blocks keep a small gap between them.
+            float blockRight = blockLeft + columnWidth - (block.column < block.columnCount - 1 ? blockMargin / 2 : 0);
+            block.rect.set(blockLeft, yOf(block.startMinute), blockRight, yOf(block.endMinute));
+        }
+    }
+
+    private float yOf(int minute) {
+        return topInset + minute * pxPerMinute;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (getWidth() == 0 || getHeight() == 0) return;
+        long start = RenderMetrics.start();
+
+        // The timeline has no background of its own, so the layer keeps its alpha.
+        Bitmap grid = GridLayerCache.get(getContext(), "day", getWidth(), getHeight(), false, this::drawGrid);
+        canvas.drawBitmap(grid, 0, 0, null);
+
+        eventBlocks.draw(canvas);
+        RenderMetrics.stage("day.draw", start);
+    }
+
+    private void drawGrid(Canvas canvas, int width, int height) {
+        float labelBaselineOffset = labelPaint.getTextSize() / 3;
+        for (int i = 0; i < labels.length; i++) {
+            float y = yOf(i * LABEL_STEP_MINUTES);
+            canvas.drawText(labels[i], 8 * density, y + labelBaselineOffset, labelPaint);
+            canvas.drawLine(gutterWidth, y, width, y, gridPaint);
+        }
+    }
+
+    @Override
+    public boolean onDragEvent(DragEvent event) {
+        return eventBlocks.onDragEvent(event, dragTarget);
+    }
+
+    private final EventBlocks.DragTarget dragTarget = new EventBlocks.DragTarget() {
+        @Override
+        public void moveDragPreview(float x, float y) {
+            DayTimelineView.this.moveDragPreview(y);
+        }
+
+        @Override
+        public void onDrop(Event event, int day, int startMinute) {
+            if (onEventMoveListener != null) {
+                onEventMoveListener.onEventMove(event, startMinute);
+            }
+        }
+    };
+
+    /**
+     * Snaps the dragged event's start under the pointer and moves the preview there.
+     * Runs for every move, so it only updates fields and invalidates on a slot change.
+     */
+    private void moveDragPreview(float y) {
+        DragPreview dragPreview = eventBlocks.dragPreview;
+        float minute = START_HOUR * 60 + (y - topInset) / pxPerMinute - dragPreview.grabMinutes;
+        int lastStart = END_HOUR * 60 - Math.min(dragPreview.durationMinutes, TOTAL_MINUTES);
+        int start = DragPreview.snap(minute, snapMinutes, START_HOUR * 60, lastStart);
+        if (!dragPreview.moveTo(0, start, dayLayout)) return;
+
+        int end = Math.min(start + dragPreview.durationMinutes, END_HOUR * 60);
+        dragPreview.rect.set(gutterWidth + blockMargin, yOf(start - START_HOUR * 60),
+                getWidth() - blockMargin, yOf(end - START_HOUR * 60));
+        invalidate();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return gestureDetector.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.timecast;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * Snapped preview of an event being dragged inside {@link DayTimelineView} or
+ * {@link WeekGridView}.
+ *
+ * Each view's {@link EventBlocks} holds one preview and updates it in place on every
+ * drag move: the pointer is snapped to the view's slot size ({@link #DEFAULT_SNAP_MINUTES}
+ * or {@link #FINE_SNAP_MINUTES}), the slot is checked against the day's
+ * {@link EventLayoutEngine.DayLayout} for conflicts, and the rectangle and time label
+ * are rewritten. Nothing is allocated and nothing is laid out, and a move that stays in
+ * the same slot does not even invalidate.
+ */
+final class DragPreview {
+    static final int DEFAULT_SNAP_MINUTES = 15;
+    static final int FINE_SNAP_MINUTES = 5;
+
+    /** Event being dragged, or null when no drag is running. */
+    Event event;
+    /** Minutes between the event's start and the point where it was grabbed. */
+    float grabMinutes;
+    int durationMinutes;
+    int day;
+    /** Snapped start in minutes since midnight, or -1 while hidden. */
+    int startMinute = -1;
+    boolean conflict;
+    final RectF rect = new RectF();
+
+    private final char[] label = new char[5];
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint conflictPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float padding;
+
+    DragPreview(Context context) {
+        float density = context.getResources().getDisplayMetrics().density;
+        float scaledDensity = context.getResources().getDisplayMetrics().scaledDensity;
+        padding = 4 * density;
+
+        fillPaint.setColor(ContextCompat.getColor(context, R.color.dark_blue));
+        fillPaint.setAlpha(160);
+        conflictPaint.setColor(Color.RED);
+        conflictPaint.setAlpha(160);
+        strokePaint.setStyle(Paint.Style.STROKE);
+        strokePaint.setStrokeWidth(2 * density);
+        strokePaint.setColor(Color.WHITE);
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(12 * scaledDensity);
+        textPaint.setFakeBoldText(true);
+    }
+
+    void begin(Event event, float grabMinutes) {
+        this.event = event;
+        this.grabMinutes = grabMinutes;
+        durationMinutes = (int) Math.max(1, (event.endTime.getTime() - event.startTime.getTime()) / 60_000);
+        startMinute = -1;
+    }
+
+    boolean isActive() {
+        return event != null;
+    }
+
+    boolean isShown() {
+        return event != null && startMinute >= 0;
+    }
+
+    /**
+     * Moves the preview to a slot and rechecks conflicts against {@code layout}.
+     *
+     * @return false if the preview was already showing that slot
+     */
+    boolean moveTo(int day, int startMinute, EventLayoutEngine.DayLayout layout) {
+        if (day == this.day && startMinute == this.startMinute) return false;
+        this.day = day;
+        this.startMinute = startMinute;
+        conflict = layout != null && layout.overlaps(startMinute, startMinute + durationMinutes, event.id);
+
+        label[0] = (char) ('0' + startMinute / 600);
+        label[1] = (char) ('0' + startMinute / 60 % 10);
+        label[2] = ':';
+        label[3] = (char) ('0' + startMinute % 60 / 10);
+        label[4] = (char) ('0' + startMinute % 10);
+        return true;
+    }
+
+    void hide() {
+        startMinute = -1;
+    }
+
+    void end() {
+        event = null;
+        startMinute = -1;
+    }
+
+    void draw(Canvas canvas, float cornerRadius) {
+        canvas.drawRoundRect(rect, cornerRadius, cornerRadius, conflict ? conflictPaint : fillPaint);
+        canvas.drawRoundRect(rect, cornerRadius, cornerRadius, strokePaint);
+        canvas.drawText(label, 0, label.length, rect.left + padding, rect.top + padding - textPaint.ascent(), textPaint);
+    }
+
+    /**
+     * Rounds a minute of the day to the nearest multiple of {@code step}, kept within
+     * {@code first}..{@code last}.
+     */
+    static int snap(float minute, int step, int first, int last) {
+        int snapped = Math.round(minute / step) * step;
+        int lastAligned = Math.max(first, last - Math.floorMod(last, step));
+        return Math.max(first, Math.min(lastAligned, snapped));
+    }
+}
@@ -1,10 +1,8 @@
 package com.example.timecast;
 
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.Locale;
 import java.util.UUID;
 
 public class Event implements Serializable {
@@ -17,6 +15,12 @@ public class Event implements Serializable {
     public String type;
     public String location;
 
+    /**
+     * Creates an empty event with no id, for deserializers that fill in every field.
+     */
+    public Event() {
+    }
+
     public Event(String title, String description, Date date, Date startTime, Date endTime, String type, String location) {
         this.id = UUID.randomUUID().toString();
         this.title = title;
@@ -28,9 +32,26 @@ public class Event implements Serializable {
         this.location = location;
     }
 
+    /**
+     * Returns a separate event with the same id and values. Events handed out by the
+     * repository are shared with its indexes and other screens, so edit a copy and
+     * save that instead of changing them in place.
+     */
+    public Event copy() {
+        Event copy = new Event();
+        copy.id = id;
+        copy.title = title;
+        copy.description = description;
+        copy.date = date == null ? null : new Date(date.getTime());
+        copy.startTime = startTime == null ? null : new Date(startTime.getTime());
+        copy.endTime = endTime == null ? null : new Date(endTime.getTime());
+        copy.type = type;
+        copy.location = location;
+        return copy;
+    }
+
     public String getFormattedTimeRange() {
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        return timeFormat.format(startTime) + " - " + timeFormat.format(endTime);
+        return TimeFormats.timeRange(startTime, endTime);
     }
 
     public int getDurationMinutes() {
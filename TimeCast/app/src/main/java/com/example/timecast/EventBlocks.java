@@ -0,0 +1,214 @@
+package com.example.timecast;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Point;
+import android.graphics.RectF;
+import android.view.DragEvent;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+
+/**
+ * The event blocks of {@link DayTimelineView} and {@link WeekGridView}, and dragging
+ * them.
+ *
+ * Holds the block model, draws blocks and the {@link DragPreview}, finds the block under
+ * a touch, starts a drag with a shadow of the pressed block and runs the view's drag
+ * events. The views only place blocks and turn a pointer position into a day and slot,
+ * through {@link DragTarget}.
+ */
+final class EventBlocks {
+
+    interface DragTarget {
+        /**
+         * Snaps the pointer to a day and slot with {@link DragPreview#snap}, moves the
+         * preview there and invalidates if it changed.
+         */
+        void moveDragPreview(float x, float y);
+
+        /**
+         * @param day         day column dropped on, 0 in a single-day view
+         * @param startMinute new start in minutes since midnight, snapped to the slot grid
+         */
+        void onDrop(Event event, int day, int startMinute);
+    }
+
+    final ArrayList<Block> blocks = new ArrayList<>();
+    final DragPreview dragPreview;
+
+    private final View view;
+    private final Paint blockPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float paddingX;
+    private final float paddingY;
+    private final float cornerRadius;
+
+    /**
+     * @param paddingX space left and right of the block text, in pixels
+     * @param paddingY space above the first line of text, in pixels
+     */
+    EventBlocks(View view, float paddingX, float paddingY) {
+        this.view = view;
+        this.paddingX = paddingX;
+        this.paddingY = paddingY;
+        float density = view.getResources().getDisplayMetrics().density;
+        float scaledDensity = view.getResources().getDisplayMetrics().scaledDensity;
+        cornerRadius = 4 * density;
+
+        blockPaint.setColor(ContextCompat.getColor(view.getContext(), R.color.dark_blue));
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(12 * scaledDensity);
+        dragPreview = new DragPreview(view.getContext());
+    }
+
+    void clear() {
+        blocks.clear();
+    }
+
+    void add(Event event, int day, int startMinute, int endMinute, int column, int columnCount) {
+        blocks.add(new Block(event, day, startMinute, endMinute, column, columnCount));
+    }
+
+    @Nullable
+    Block blockAt(float x, float y) {
+        // Later blocks are drawn on top, so search from the end.
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            if (blocks.get(i).rect.contains(x, y)) return blocks.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Draws every block, then the drag preview if one is showing.
+     */
+    void draw(Canvas canvas) {
+        for (int i = 0; i < blocks.size(); i++) {
+            drawBlock(canvas, blocks.get(i));
+        }
+        if (dragPreview.isShown()) {
+            dragPreview.draw(canvas, cornerRadius);
+        }
+    }
+
+    private void drawBlock(Canvas canvas, Block block) {
+        RectF rect = block.rect;
+        canvas.drawRoundRect(rect, cornerRadius, cornerRadius, blockPaint);
+
+        canvas.save();
+        canvas.clipRect(rect.left + paddingX, rect.top, rect.right - paddingX, rect.bottom);
+        float lineHeight = textPaint.getFontSpacing();
+        float x = rect.left + paddingX;
+        float y = rect.top + paddingY - textPaint.ascent();
+        for (String line : block.lines) {
+            if (line == null) continue;
+            if (y + textPaint.ascent() > rect.bottom) break;
+            canvas.drawText(line, x, y, textPaint);
+            y += lineHeight;
+        }
+        canvas.restore();
+    }
+
+    /**
+     * Starts dragging the block under a long press, if there is one. The preview and
+     * the shadow both keep the point where the block was grabbed.
+     */
+    void startDrag(MotionEvent e, float pxPerMinute) {
+        Block block = blockAt(e.getX(), e.getY());
+        if (block == null) return;
+        dragPreview.begin(block.event, (e.getY() - block.rect.top) / pxPerMinute);
+        BlockShadowBuilder shadow = new BlockShadowBuilder(block, e.getX() - block.rect.left, e.getY() - block.rect.top);
+        if (!view.startDragAndDrop(null, shadow, block.event, 0)) {
+            dragPreview.end();
+        }
+    }
+
+    /**
+     * Handles a drag event for the owning view's {@link View#onDragEvent}.
+     */
+    boolean onDragEvent(DragEvent event, DragTarget target) {
+        switch (event.getAction()) {
+            case DragEvent.ACTION_DRAG_STARTED:
+                // Only blocks of this view can be dropped on it.
+                return dragPreview.isActive();
+            case DragEvent.ACTION_DRAG_LOCATION:
+                target.moveDragPreview(event.getX(), event.getY());
+                return true;
+            case DragEvent.ACTION_DRAG_EXITED:
+                dragPreview.hide();
+                view.invalidate();
+                return true;
+            case DragEvent.ACTION_DROP:
+                target.moveDragPreview(event.getX(), event.getY());
+                target.onDrop(dragPreview.event, dragPreview.day, dragPreview.startMinute);
+                return true;
+            case DragEvent.ACTION_DRAG_ENDED:
+                dragPreview.end();
+                view.invalidate();
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * One event's slot in the layout model; minutes are relative to the first hour the
+     * view shows.
+     */
+    static final class Block {
+        final Event event;
+        final int day;
+        final int startMinute;
+        final int endMinute;
+        final int column;
+        final int columnCount;
+        final String[] lines;
+        final RectF rect = new RectF();
+
+        Block(Event event, int day, int startMinute, int endMinute, int column, int columnCount) {
+            this.event = event;
+            this.day = day;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+            this.column = column;
+            this.columnCount = columnCount;
+            this.lines = new String[]{event.title, event.getFormattedTimeRange(), event.type};
+        }
+    }
+
+    /**
+     * Drag shadow that draws the pressed block, since there is no child view to copy.
+     */
+    private final class BlockShadowBuilder extends View.DragShadowBuilder {
+        private final Block block;
+        private final float touchX;
+        private final float touchY;
+
+        BlockShadowBuilder(Block block, float touchX, float touchY) {
+            this.block = block;
+            this.touchX = touchX;
+            this.touchY = touchY;
+        }
+
+        @Override
+        public void onProvideShadowMetrics(Point outShadowSize, Point outShadowTouchPoint) {
+            int width = Math.max(1, (int) block.rect.width());
+            int height = Math.max(1, (int) block.rect.height());
+            outShadowSize.set(width, height);
+            // Hold the shadow where the block was grabbed, matching the preview.
+            outShadowTouchPoint.set(Math.min(width - 1, (int) touchX), Math.min(height - 1, (int) touchY));
+        }
+
+        @Override
+        public void onDrawShadow(@NonNull Canvas canvas) {
+            canvas.translate(-block.rect.left, -block.rect.top);
+            drawBlock(canvas, block);
+        }
+    }
+}
@@ -1,15 +1,12 @@
 package com.example.timecast;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.*;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import com.example.timecast.data.EventLoader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -18,9 +15,6 @@ public class EventDetailsActivity extends AppCompatActivity {
     private EditText inputTitle, inputDescription, inputDate, inputStartTime, inputEndTime, inputLocation;
     private Button btnSave, btnDelete, btnCancel;
     private Event event;
-    private SharedPreferences prefs;
-    private Gson gson = new Gson();
-    private final String PREF_KEY = "event_data";
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
     private SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
 
@@ -44,7 +38,6 @@ public class EventDetailsActivity extends AppCompatActivity {
         btnSave = findViewById(R.id.btnSave);
         btnDelete = findViewById(R.id.buttonDelete);
         btnCancel = findViewById(R.id.buttonCancel);
-        prefs = getSharedPreferences("TimeCastPrefs", MODE_PRIVATE);
     }
 
     private void loadEventFromIntent() {
@@ -121,30 +114,17 @@ public class EventDetailsActivity extends AppCompatActivity {
             event.endTime = endTime;
             event.location = inputLocation.getText().toString().trim();
 
-            // Save to storage
-            ArrayList<Event> events = loadEvents();
-            if (events == null) {
-                events = new ArrayList<>();
-            }
-
-            boolean exists = false;
-            for (int i = 0; i < events.size(); i++) {
-                Event e = events.get(i);
-                if (e != null && e.id != null && e.id.equals(event.id)) {
-                    events.set(i, event);
-                    exists = true;
-                    break;
-                }
-            }
-
-            if (!exists) {
-                events.add(event);
-            }
-
-            saveEvents(events);
-            showToast("Event saved successfully");
-            setResult(RESULT_OK);
-            finish();
+            // Save to storage on the loader thread; opening the store can take a while
+            Event edited = event;
+            new EventLoader(this).load(repository -> {
+                repository.save(edited);
+                return true;
+            }, saved -> {
+                if (isDestroyed()) return;
+                showToast("Event saved successfully");
+                setResult(RESULT_OK);
+                finish();
+            });
 
         } catch (Exception e) {
             Log.e("EventDetails", "Save error", e);
@@ -176,29 +156,17 @@ public class EventDetailsActivity extends AppCompatActivity {
                 return;
             }
 
-            ArrayList<Event> events = loadEvents();
-            if (events == null) {
-                events = new ArrayList<>();
-            }
-
-            boolean removed = false;
-            for (Iterator<Event> iterator = events.iterator(); iterator.hasNext();) {
-                Event e = iterator.next();
-                if (e != null && e.id != null && e.id.equals(event.id)) {
-                    iterator.remove();
-                    removed = true;
-                    break;
+            String id = event.id;
+            new EventLoader(this).load(repository -> repository.delete(id), deleted -> {
+                if (isDestroyed()) return;
+                if (deleted) {
+                    showToast("Event deleted successfully");
+                    setResult(RESULT_OK);
+                    finish();
+                } else {
+                    showToast("Event not found in database");
                 }
-            }
-
-            if (removed) {
-                saveEvents(events);
-                showToast("Event deleted successfully");
-                setResult(RESULT_OK);
-                finish();
-            } else {
-                showToast("Event not found in database");
-            }
+            });
         } catch (Exception e) {
             Log.e("EventDetails", "Delete error", e);
             showToast("Error deleting event: " + e.getMessage());
@@ -231,19 +199,6 @@ public class EventDetailsActivity extends AppCompatActivity {
         events.add(updatedEvent);
     }
 
-    private ArrayList<Event> loadEvents() {
-        String json = prefs.getString(PREF_KEY, null);
-        if (json == null) return new ArrayList<>();
-        Type type = new TypeToken<ArrayList<Event>>(){}.getType();
-        return gson.fromJson(json, type);
-    }
-
-    private void saveEvents(ArrayList<Event> events) {
-        prefs.edit()
-                .putString(PREF_KEY, gson.toJson(events))
-                .apply();
-    }
-
     private void showToast(String message) {
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
@@ -0,0 +1,253 @@
+package com.example.timecast;
+
+import androidx.annotation.Nullable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Places a day's events side by side where they overlap, for the day and week views.
+ *
+ * Events are swept in start order. A min-heap of running events by end time frees
+ * their columns as later events start, and each new event takes the lowest free
+ * column. Events that overlap, directly or through a chain, form a cluster, and all of
+ * a cluster's events share its column count so they split the width evenly. The sweep
+ * is O(n log n).
+ *
+ * Layouts are cached per day. A cached layout is reused while the day's events keep
+ * the same values, which is checked with a cheap fingerprint over every field; any
+ * edit or move computes a fresh one. The layout hands out the events it was built
+ * from, so the fingerprint must cover everything the views draw or save from them. The engine is thread-safe, so layouts can be built on the
+ * loader thread together with the query.
+ *
+ * Each layout also keeps its events in start order with a running maximum of end
+ * times, so {@link DayLayout#overlaps} can answer drag previews without allocating.
+ */
+public final class EventLayoutEngine {
+    private static final int CACHE_DAYS = 62;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final EventLayoutEngine instance = new EventLayoutEngine();
+
+    private final LinkedHashMap<Long, DayLayout> cache = new LinkedHashMap<Long, DayLayout>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, DayLayout> eldest) {
+            return size() > CACHE_DAYS;
+        }
+    };
+
+    private EventLayoutEngine() {
+    }
+
+    public static EventLayoutEngine getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the layout of the given events on the given day, from the cache when
+     * they have not changed since it was computed.
+     */
+    public synchronized DayLayout layoutDay(LocalDate day, List<Event> events) {
+        long epochDay = day.toEpochDay();
+        long fingerprint = fingerprint(events);
+        DayLayout cached = cache.get(epochDay);
+        if (cached != null && cached.fingerprint == fingerprint) {
+            return cached;
+        }
+        DayLayout layout = compute(day, events, fingerprint);
+        cache.put(epochDay, layout);
+        return layout;
+    }
+
+    private static long fingerprint(List<Event> events) {
+        long hash = events.size();
+        for (Event event : events) {
+            hash = 31 * hash + Objects.hashCode(event.id);
+            hash = 31 * hash + Objects.hashCode(event.title);
+            hash = 31 * hash + Objects.hashCode(event.description);
+            hash = 31 * hash + Objects.hashCode(event.type);
+            hash = 31 * hash + Objects.hashCode(event.location);
+            hash = 31 * hash + (event.date == null ? 0 : event.date.getTime());
+            hash = 31 * hash + (event.startTime == null ? 0 : event.startTime.getTime());
+            hash = 31 * hash + (event.endTime == null ? 0 : event.endTime.getTime());
+        }
+        return hash;
+    }
+
+    private static DayLayout compute(LocalDate day, List<Event> source, long fingerprint) {
+        ZoneId zone = ZoneId.systemDefault();
+        ArrayList<Event> timed = new ArrayList<>(source.size());
+        for (Event event : source) {
+            if (event.startTime != null && event.endTime != null) {
+                timed.add(event);
+            }
+        }
+
+        int n = timed.size();
+        Event[] events = new Event[n];
+        int[] start = new int[n];
+        int[] end = new int[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            Event event = timed.get(i);
+            events[i] = event;
+            start[i] = minuteOfDay(event.startTime.getTime(), day, zone);
+            end[i] = Math.max(start[i], minuteOfDay(event.endTime.getTime(), day, zone));
+            order[i] = i;
+        }
+        // By start, longest first on ties so it gets the leftmost column.
+        Arrays.sort(order, (a, b) -> start[a] != start[b]
+                ? Integer.compare(start[a], start[b])
+                : Integer.compare(end[b], end[a]));
+
+        int[] column = new int[n];
+        int[] columnCount = new int[n];
+        // Zero-length events still occupy their start minute so they get a column.
+        PriorityQueue<Integer> running = new PriorityQueue<>(
+                (a, b) -> Integer.compare(Math.max(end[a], start[a] + 1), Math.max(end[b], start[b] + 1)));
+        PriorityQueue<Integer> freeColumns = new PriorityQueue<>();
+        int clusterBegin = 0;
+        int clusterColumns = 0;
+
+        for (int pos = 0; pos < n; pos++) {
+            int i = order[pos];
+            while (!running.isEmpty() && Math.max(end[running.peek()], start[running.peek()] + 1) <= start[i]) {
+                freeColumns.add(column[running.poll()]);
+            }
+            if (running.isEmpty()) {
+                fillColumnCount(order, clusterBegin, pos, clusterColumns, columnCount);
+                clusterBegin = pos;
+                clusterColumns = 0;
+                freeColumns.clear();
+            }
+
+            column[i] = freeColumns.isEmpty() ? clusterColumns : freeColumns.poll();
+            clusterColumns = Math.max(clusterColumns, column[i] + 1);
+            running.add(i);
+        }
+        fillColumnCount(order, clusterBegin, n, clusterColumns, columnCount);
+
+        return withStartIndex(day.toEpochDay(), fingerprint, events, start, end, column, columnCount, order);
+    }
+
+    /**
+     * Rebuilds a layout saved earlier, such as {@link TodaySnapshot}'s, without running
+     * the sweep again. The result is not cached, so the next {@link #layoutDay} for the
+     * day computes a fresh layout from the store.
+     */
+    static DayLayout restore(long epochDay, Event[] events, int[] start, int[] end, int[] column, int[] columnCount) {
+        Integer[] order = new Integer[events.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(start[a], start[b]));
+        return withStartIndex(epochDay, 0, events, start, end, column, columnCount, order);
+    }
+
+    /**
+     * Builds a layout with its start-ordered index for {@link DayLayout#overlaps}.
+     *
+     * @param order event indices sorted by start minute
+     */
+    private static DayLayout withStartIndex(long epochDay, long fingerprint, Event[] events, int[] start, int[] end,
+                                            int[] column, int[] columnCount, Integer[] order) {
+        int n = events.length;
+        int[] byStart = new int[n];
+        int[] maxEndByStart = new int[n];
+        for (int pos = 0; pos < n; pos++) {
+            byStart[pos] = order[pos];
+            maxEndByStart[pos] = Math.max(end[order[pos]], pos > 0 ? maxEndByStart[pos - 1] : 0);
+        }
+        return new DayLayout(epochDay, fingerprint, events, start, end, column, columnCount,
+                byStart, maxEndByStart);
+    }
+
+    private static void fillColumnCount(Integer[] order, int from, int to, int count, int[] columnCount) {
+        for (int pos = from; pos < to; pos++) {
+            columnCount[order[pos]] = count;
+        }
+    }
+
+    /**
+     * Minutes since the start of {@code day}, clamped to the day, for an instant that
+     * may fall on an earlier or later day.
+     */
+    private static int minuteOfDay(long millis, LocalDate day, ZoneId zone) {
+        ZonedDateTime time = Instant.ofEpochMilli(millis).atZone(zone);
+        int compare = time.toLocalDate().compareTo(day);
+        if (compare < 0) return 0;
+        if (compare > 0) return MINUTES_PER_DAY;
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Geometry of one day's events in minutes since midnight. Index i of every array
+     * describes {@code events[i]}. Instances are shared and must not be modified.
+     */
+    public static final class DayLayout {
+        public final long epochDay;
+        final long fingerprint;
+        public final Event[] events;
+        public final int[] startMinute;
+        public final int[] endMinute;
+        public final int[] column;
+        public final int[] columnCount;
+        /** Event indices sorted by start minute. */
+        private final int[] byStart;
+        /** Latest end minute among {@code byStart[0..pos]}. */
+        private final int[] maxEndByStart;
+
+        DayLayout(long epochDay, long fingerprint, Event[] events, int[] startMinute, int[] endMinute,
+                  int[] column, int[] columnCount, int[] byStart, int[] maxEndByStart) {
+            this.epochDay = epochDay;
+            this.fingerprint = fingerprint;
+            this.events = events;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+            this.column = column;
+            this.columnCount = columnCount;
+            this.byStart = byStart;
+            this.maxEndByStart = maxEndByStart;
+        }
+
+        public int size() {
+            return events.length;
+        }
+
+        /**
+         * Tells whether any event other than the one with {@code ignoreId} overlaps the
+         * given minutes.
+         * Binary searches for the events starting before {@code toMinute} and walks
+         * back only while their running end maximum still reaches {@code fromMinute};
+         * nothing is allocated, so it can run on every drag move.
+         */
+        public boolean overlaps(int fromMinute, int toMinute, @Nullable String ignoreId) {
+            int low = 0;
+            int high = byStart.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (startMinute[byStart[mid]] < toMinute) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int pos = low - 1; pos >= 0 && maxEndByStart[pos] > fromMinute; pos--) {
+                int i = byStart[pos];
+                if (endMinute[i] > fromMinute && (ignoreId == null || !ignoreId.equals(events[i].id))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.timecast;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Process-wide cache of the static grid layers drawn behind calendar events.
+ *
+ * Time labels, hour lines and day dividers only depend on the view size and on the
+ * configuration (density, font scale, night mode, locale), so each kind of grid is
+ * rendered into a bitmap once and every day or week shown afterwards, including those
+ * in newly created views, reuses it. Only the latest layer per kind is kept, and the
+ * cache is emptied on any configuration change. Checking a cached layer compares the
+ * values it was painted for field by field, so a draw that hits the cache allocates
+ * nothing.
+ */
+final class GridLayerCache {
+
+    interface Painter {
+        void paint(Canvas canvas, int width, int height);
+    }
+
+    private static final HashMap<String, Layer> layers = new HashMap<>();
+    private static boolean callbacksRegistered;
+
+    private GridLayerCache() {
+    }
+
+    /**
+     * Returns the cached layer of this kind for the given size, painting a new one if
+     * the size or configuration differs from the cached one.
+     *
+     * @param opaque true if the painter fills every pixel, which allows a 16-bit bitmap
+     */
+    static synchronized Bitmap get(Context context, String kind, int width, int height,
+                                   boolean opaque, Painter painter) {
+        registerCallbacks(context);
+
+        Configuration config = context.getResources().getConfiguration();
+        Layer layer = layers.get(kind);
+        if (layer != null && layer.matches(width, height, config)) {
+            return layer.bitmap;
+        }
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height,
+                opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+        painter.paint(new Canvas(bitmap), width, height);
+        // The replaced bitmap may still be on screen in another view, so it is left to
+        // the garbage collector rather than recycled.
+        layers.put(kind, new Layer(bitmap, width, height, config));
+        return bitmap;
+    }
+
+    private static void registerCallbacks(Context context) {
+        if (callbacksRegistered) return;
+        callbacksRegistered = true;
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks() {
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+                clear();
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+            }
+        });
+    }
+
+    private static synchronized void clear() {
+        layers.clear();
+    }
+
+    private static final class Layer {
+        final Bitmap bitmap;
+        final int width;
+        final int height;
+        final int densityDpi;
+        final float fontScale;
+        final int nightMode;
+        final Locale locale;
+
+        Layer(Bitmap bitmap, int width, int height, Configuration config) {
+            this.bitmap = bitmap;
+            this.width = width;
+            this.height = height;
+            densityDpi = config.densityDpi;
+            fontScale = config.fontScale;
+            nightMode = config.uiMode & Configuration.UI_MODE_NIGHT_MASK;
+            locale = config.getLocales().get(0);
+        }
+
+        boolean matches(int width, int height, Configuration config) {
+            return this.width == width
+                    && this.height == height
+                    && densityDpi == config.densityDpi
+                    && fontScale == config.fontScale
+                    && nightMode == (config.uiMode & Configuration.UI_MODE_NIGHT_MASK)
+                    && Objects.equals(locale, config.getLocales().get(0));
+        }
+    }
+}
@@ -1,45 +1,39 @@
 package com.example.timecast;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.graphics.Color;
 import android.os.Bundle;
 import android.util.Log;
-import android.view.DragEvent;
-import android.view.Gravity;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.FrameLayout;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.PopupMenu;
 import androidx.fragment.app.Fragment;
 
+import com.example.timecast.data.EventLoader;
+import com.example.timecast.metrics.FrameMonitor;
+import com.example.timecast.metrics.RenderMetrics;
+import com.example.timecast.weather.EventWeatherChecker;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Type;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.Calendar;
-import java.util.Locale;
 
 public class MainActivity extends AppCompatActivity  implements MonthViewFragment.OnMonthChangeListener,WeekViewFragment.OnWeekChangeListener  {
+    /** How far ahead the forecast reaches, and so how far ahead outdoor events are checked. */
+    private static final int FORECAST_DAYS = 7;
 
     private Button addActivityButton;
-    private LinearLayout timeLabels;
-    private FrameLayout eventsContainer;
-    private ArrayList<Event> eventList = new ArrayList<>();
-    private SharedPreferences prefs;
-    private Gson gson = new Gson();
+    private DayTimelineView dayTimeline;
+    private EventLoader dayLoader;
+    private FrameMonitor frameMonitor;
     private TextView dateTextView;
     private Calendar currentDate = Calendar.getInstance();
     private MonthViewFragment monthViewFragment;
@@ -53,16 +47,35 @@ public class MainActivity extends AppCompatActivity  implements MonthViewFragmen
 
         initializeViews();
         setupNavigation();
+        showTodaySnapshot();
         loadEventsForDate();
         updateDateDisplay();
+        if (savedInstanceState == null) {
+            checkUpcomingWeather();
+        }
+    }
+
+    /**
+     * Draws today from {@link TodaySnapshot} so the first frame has the timeline, while
+     * {@link #loadEventsForDate()} opens the store in the background.
+     */
+    private void showTodaySnapshot() {
+        TodaySnapshot.install(this);
+        long start = RenderMetrics.start();
+        EventLayoutEngine.DayLayout snapshot = TodaySnapshot.read(this, LocalDate.now());
+        if (snapshot != null) {
+            dayTimeline.setDayLayout(snapshot);
+        }
+        RenderMetrics.stage("day.snapshot", start);
     }
 
     private void initializeViews() {
         addActivityButton = findViewById(R.id.addActivity);
-        timeLabels = findViewById(R.id.timelineContainer);
-        eventsContainer = findViewById(R.id.eventsContainer);
+        dayTimeline = findViewById(R.id.dayTimeline);
         dateTextView = findViewById(R.id.date);
-        prefs = getSharedPreferences("TimeCastPrefs", MODE_PRIVATE);
+        dayLoader = new EventLoader(this);
+        frameMonitor = new FrameMonitor(this);
+        setupDayTimeline();
 
         monthViewFragment = new MonthViewFragment();
         getSupportFragmentManager()
@@ -114,31 +127,32 @@ public class MainActivity extends AppCompatActivity  implements MonthViewFragmen
         menuIcon.setOnClickListener(v -> {
             PopupMenu popupMenu = new PopupMenu(MainActivity.this, menuIcon);
             popupMenu.getMenuInflater().inflate(R.menu.view_menu, popupMenu.getMenu());
+            popupMenu.getMenu().findItem(R.id.render_stats).setVisible(RenderMetrics.isDebuggable(this));
 
             popupMenu.setOnMenuItemClickListener(item -> {
                 int id = item.getItemId();
                 if (id == R.id.day_view) {
+                    RenderMetrics.setScreen("day");
                     updateDateDisplay();
-                    findViewById(R.id.timelineContainer).setVisibility(View.VISIBLE);
-                    findViewById(R.id.eventsContainer).setVisibility(View.VISIBLE);
+                    dayTimeline.setVisibility(View.VISIBLE);
                     findViewById(R.id.calendar_fragment_container).setVisibility(View.GONE);
                     return true;
                 } else if (id == R.id.month_view) {
+                    RenderMetrics.setScreen("month");
                     monthViewFragment = new MonthViewFragment();
                     getSupportFragmentManager()
                             .beginTransaction()
                             .replace(R.id.calendar_fragment_container, monthViewFragment)
                             .commit();
 
-                    findViewById(R.id.timelineContainer).setVisibility(View.GONE);
-                    findViewById(R.id.eventsContainer).setVisibility(View.GONE);
+                    dayTimeline.setVisibility(View.GONE);
                     findViewById(R.id.calendar_fragment_container).setVisibility(View.VISIBLE);
                     return true;
                 }
                 else if (id == R.id.week_view) {
+                    RenderMetrics.setScreen("week");
 
-                    findViewById(R.id.timelineContainer).setVisibility(View.GONE);
-                    findViewById(R.id.eventsContainer).setVisibility(View.GONE);
+                    dayTimeline.setVisibility(View.GONE);
                     findViewById(R.id.calendar_fragment_container).setVisibility(View.VISIBLE);
 
                     weekViewFragment = new WeekViewFragment();
@@ -148,6 +162,12 @@ public class MainActivity extends AppCompatActivity  implements MonthViewFragmen
                             .commit();
 
                     return true;
+                } else if (id == R.id.agenda_view) {
+                    startActivity(new Intent(MainActivity.this, AgendaActivity.class));
+                    return true;
+                } else if (id == R.id.render_stats) {
+                    startActivity(new Intent(MainActivity.this, RenderStatsActivity.class));
+                    return true;
                 }
                 return false;
             });
@@ -155,6 +175,48 @@ public class MainActivity extends AppCompatActivity  implements MonthViewFragmen
         });
     }
 
+    private void setupDayTimeline() {
+        dayTimeline.setOnEventClickListener(event -> {
+            Intent intent = new Intent(MainActivity.this, EventDetailsActivity.class);
+            intent.putExtra("event", event);
+            startActivity(intent);
+        });
+
+        dayTimeline.setOnEventMoveListener((draggedEvent, newStartMinutes) -> {
+            Calendar newStart = Calendar.getInstance();
+            newStart.setTime(draggedEvent.date);
+            newStart.set(Calendar.HOUR_OF_DAY, newStartMinutes / 60);
+            newStart.set(Calendar.MINUTE, newStartMinutes % 60);
+            newStart.set(Calendar.SECOND, 0);
+            newStart.set(Calendar.MILLISECOND, 0);
+
+            Calendar newEnd = (Calendar) newStart.clone();
+            long durationMillis = draggedEvent.endTime.getTime() - draggedEvent.startTime.getTime();
+            newEnd.setTimeInMillis(newStart.getTimeInMillis() + durationMillis);
+
+            // Update event times on a copy; the dragged instance is the store's own
+            Event movedEvent = draggedEvent.copy();
+            movedEvent.startTime = newStart.getTime();
+            movedEvent.endTime = newEnd.getTime();
+
+            // A loader of its own, so a later load or drop cannot cancel this save
+            new EventLoader(this).load(repository -> {
+                if (!repository.findConflicts(movedEvent.startTime, movedEvent.endTime, movedEvent.id).isEmpty()) {
+                    return false;
+                }
+                repository.save(movedEvent);
+                return true;
+            }, moved -> {
+                if (isDestroyed()) return;
+                if (!moved) {
+                    Toast.makeText(this, "Time conflict with another event!", Toast.LENGTH_LONG).show();
+                    return;
+                }
+                loadEventsForDate(); // Refresh UI
+            });
+        });
+    }
+
     private void setupNavigation() {
         BottomNavigationView bottomNav = findViewById(R.id.bottom_navigation);
         bottomNav.setOnNavigationItemSelectedListener(item -> {
@@ -175,13 +237,20 @@ public class MainActivity extends AppCompatActivity  implements MonthViewFragmen
     @Override
     protected void onResume() {
         super.onResume();
+        RenderMetrics.setScreen(currentScreenName());
+        frameMonitor.start();
         loadEventsForDate();
     }
 
+    private String currentScreenName() {
+        if (isDayViewVisible()) return "day";
+        Fragment currentFragment = getSupportFragmentManager().findFragmentById(R.id.calendar_fragment_container);
+        return currentFragment instanceof WeekViewFragment ? "week" : "month";
+    }
+
     private void updateDateDisplay() {
         if (dateTextView != null) {
-            SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, MMM d", Locale.getDefault());
-            String formatted = dateFormat.format(currentDate.getTime());
+            String formatted = TimeFormats.dayTitle(currentDay());
             Log.d("DATE_DEBUG", "Setting date to: " + formatted);
             dateTextView.setText(formatted);
         } else {
@@ -189,207 +258,74 @@ public class MainActivity extends AppCompatActivity  implements MonthViewFragmen
         }
     }
 
-    private void loadEventsForDate() {
-        loadEvents();
-        displayTimeline();
-    }
-
-    private void loadEvents() {
-        eventList.clear();
-        String json = prefs.getString("event_data", null);
-
-        if (json != null) {
-            Type type = new TypeToken<ArrayList<Event>>() {}.getType();
-            ArrayList<Event> allEvents = gson.fromJson(json, type);
-
-            if (allEvents != null) {
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                String currentDateStr = dateFormat.format(currentDate.getTime());
-
-                for (Event event : allEvents) {
-                    String eventDateStr = dateFormat.format(event.date);
-                    if (currentDateStr.equals(eventDateStr)) {
-                        eventList.add(event);
-                    }
-                }
-            }
-        }
+    @Override
+    protected void onPause() {
+        super.onPause();
+        frameMonitor.stop();
+        EventLoader.flush(this);
     }
 
-
-    public void saveEvent(Event newEvent) {
-        String json = prefs.getString("event_data", null);
-        Type type = new TypeToken<ArrayList<Event>>() {}.getType();
-        ArrayList<Event> allEvents = (json != null) ? gson.fromJson(json, type) : new ArrayList<>();
-
-        allEvents.add(newEvent);
-        prefs.edit().putString("event_data", gson.toJson(allEvents)).apply();
+    @Override
+    protected void onStop() {
+        super.onStop();
+        RenderMetrics.dump();
     }
 
-
-    private void displayTimeline() {
-        timeLabels.removeAllViews();
-        eventsContainer.removeAllViews();
-
-        int startTimeMinutes = 8 * 60;
-        int endTimeMinutes = 20 * 60;
-        int totalMinutes = endTimeMinutes - startTimeMinutes;
-
-
-        for (int minutes = startTimeMinutes; minutes <= endTimeMinutes; minutes += 30) {
-            int hour = minutes / 60;
-            int minute = minutes % 60;
-            addTimeLabel(hour, minute);
-        }
-
-        for (Event event : eventList) {
-            addEventToTimeline(event);
-        }
+    @Override
+    protected void onDestroy() {
+        dayLoader.cancel();
+        super.onDestroy();
     }
 
-
-    private void addTimeLabel(int hour, int minute) {
-        TextView timeLabel = new TextView(this);
-        timeLabel.setText(String.format(Locale.getDefault(), "%02d:%02d", hour, minute));
-        timeLabel.setTextSize(12);
-        timeLabel.setTextColor(Color.GRAY);
-
-        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT,
-                minutesToPixels(30)
-        );
-        timeLabel.setLayoutParams(params);
-        timeLabels.addView(timeLabel);
+    private LocalDate currentDay() {
+        return LocalDate.of(currentDate.get(Calendar.YEAR),
+                currentDate.get(Calendar.MONTH) + 1,
+                currentDate.get(Calendar.DAY_OF_MONTH));
     }
 
-
-    private void addEventToTimeline(Event event) {
-        try {
-            Calendar startCal = Calendar.getInstance();
-            startCal.setTime(event.startTime);
-            int startHour = startCal.get(Calendar.HOUR_OF_DAY);
-            int startMinute = startCal.get(Calendar.MINUTE);
-            int startMinutesSinceMidnight = startHour * 60 + startMinute;
-
-            Calendar endCal = Calendar.getInstance();
-            endCal.setTime(event.endTime);
-            int endHour = endCal.get(Calendar.HOUR_OF_DAY);
-            int endMinute = endCal.get(Calendar.MINUTE);
-            int endMinutesSinceMidnight = endHour * 60 + endMinute;
-
-            int timelineStartMinutes = 8 * 60;
-
-            int positionInTimeline = startMinutesSinceMidnight - timelineStartMinutes;
-            int durationMinutes = endMinutesSinceMidnight - startMinutesSinceMidnight;
-
-            if (positionInTimeline < 0 || positionInTimeline > 720) return;
-            if (positionInTimeline + durationMinutes > 720) {
-                durationMinutes = 720 - positionInTimeline;
-            }
-            if (durationMinutes <= 0) return;
-
-            TextView eventView = new TextView(this);
-            eventView.setText(String.format("%s\n%s\n%s", event.title, event.getFormattedTimeRange(), event.type));
-            eventView.setBackgroundResource(R.drawable.activity_background);
-            eventView.setTextColor(Color.WHITE);
-            eventView.setPadding(dpToPx(8), dpToPx(4), dpToPx(8), dpToPx(4));
-            eventView.setGravity(Gravity.TOP);
-
-            eventView.setOnLongClickListener(v -> {
-                View.DragShadowBuilder shadowBuilder = new View.DragShadowBuilder(v);
-                v.startDragAndDrop(null, shadowBuilder, event, 0);
-                return true;
-            });
-
-            // 🔍 On click to view details
-            eventView.setOnClickListener(v -> {
-                Intent intent = new Intent(MainActivity.this, EventDetailsActivity.class);
-                intent.putExtra("event", event);
-                startActivity(intent);
-            });
-
-            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
-                    ViewGroup.LayoutParams.MATCH_PARENT,
-                    minutesToPixels(durationMinutes)
-            );
-            params.setMargins(dpToPx(4), minutesToPixels(positionInTimeline), dpToPx(4), 0);
-            eventsContainer.addView(eventView, params);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        eventsContainer.setOnDragListener((view, dragEvent) -> {
-            switch (dragEvent.getAction()) {
-                case DragEvent.ACTION_DRAG_STARTED:
-                    return true;
-
-                case DragEvent.ACTION_DROP:
-                    float dropY = dragEvent.getY();
-                    int minutesFromTop = (int) (dropY / getResources().getDisplayMetrics().density);
-                    int newStartMinutes = minutesFromTop + 8 * 60;
-
-                    Event draggedEvent = (Event) dragEvent.getLocalState();
-                    Calendar newStart = Calendar.getInstance();
-                    newStart.setTime(draggedEvent.date);
-                    newStart.set(Calendar.HOUR_OF_DAY, newStartMinutes / 60);
-                    newStart.set(Calendar.MINUTE, newStartMinutes % 60);
-
-                    Calendar newEnd = (Calendar) newStart.clone();
-                    long durationMillis = draggedEvent.endTime.getTime() - draggedEvent.startTime.getTime();
-                    newEnd.setTimeInMillis(newStart.getTimeInMillis() + durationMillis);
-
-                    // Update event times
-                    draggedEvent.startTime = newStart.getTime();
-                    draggedEvent.endTime = newEnd.getTime();
-
-                    saveUpdatedEvent(draggedEvent);
-                    loadEventsForDate(); // Refresh UI
-                    return true;
-
-                case DragEvent.ACTION_DRAG_ENDED:
-                    return true;
-
-                default:
-                    return false;
-            }
+    private void loadEventsForDate() {
+        LocalDate day = currentDay();
+        Context appContext = getApplicationContext();
+        dayLoader.load(repository -> {
+            long start = RenderMetrics.start();
+            EventLayoutEngine.DayLayout layout = EventLayoutEngine.getInstance().layoutDay(day, repository.eventsOn(day));
+            RenderMetrics.stage("day.load", start);
+            // Keep the next launch's first frame in step with what is shown now.
+            TodaySnapshot.save(appContext, layout);
+            return layout;
+        }, layout -> {
+            long start = RenderMetrics.start();
+            dayTimeline.setDayLayout(layout);
+            RenderMetrics.stage("day.bind", start);
         });
     }
 
-    private void saveUpdatedEvent(Event updatedEvent) {
-        String json = prefs.getString("event_data", null);
-        Type type = new TypeToken<ArrayList<Event>>() {}.getType();
-        ArrayList<Event> allEvents = (json != null) ? gson.fromJson(json, type) : new ArrayList<>();
-
-        for (int i = 0; i < allEvents.size(); i++) {
-            Event e = allEvents.get(i);
-            if (e.title.equals(updatedEvent.title) && e.date.equals(updatedEvent.date)) {
-                allEvents.set(i, updatedEvent);
-                break;
-            }
-        }
-
-        prefs.edit().putString("event_data", gson.toJson(allEvents)).apply();
+    /**
+     * Checks the weather for the coming week's outdoor events in one batch, once per
+     * launch rather than on every resume so alerts are not repeated.
+     */
+    private void checkUpcomingWeather() {
+        LocalDate today = LocalDate.now();
+        Context appContext = getApplicationContext();
+        new EventLoader(this).load(repository -> repository.eventsBetween(today, today.plusDays(FORECAST_DAYS)),
+                events -> new EventWeatherChecker(appContext).checkUpcoming(events));
     }
 
-
-    private int minutesToPixels(int minutes) {
-        float dpPerMinute = 1f;
-        return (int) (minutes * dpPerMinute * getResources().getDisplayMetrics().density);
+    public void saveEvent(Event newEvent) {
+        new EventLoader(this).load(repository -> {
+            repository.add(newEvent);
+            return true;
+        }, saved -> {
+        });
     }
 
-
-    private int dpToPx(int dp) {
-        return (int) (dp * getResources().getDisplayMetrics().density);
-
-    }
     @Override
     public void onMonthChanged(String newMonthYear) {
         Fragment currentFragment = getSupportFragmentManager().findFragmentById(R.id.calendar_fragment_container);
 
         if (currentFragment instanceof MonthViewFragment
                 && findViewById(R.id.calendar_fragment_container).getVisibility() == View.VISIBLE
-                && findViewById(R.id.timelineContainer).getVisibility() == View.GONE) {
+                && dayTimeline.getVisibility() == View.GONE) {
 
             TextView dateTextView = findViewById(R.id.date);
             dateTextView.setText(newMonthYear);
@@ -411,16 +347,15 @@ public class MainActivity extends AppCompatActivity  implements MonthViewFragmen
 
     private boolean isDayViewVisible() {
         View calendarFragmentContainer = findViewById(R.id.calendar_fragment_container);
-        View timelineContainer = findViewById(R.id.timelineContainer);
 
-        return timelineContainer.getVisibility() == View.VISIBLE
+        return dayTimeline.getVisibility() == View.VISIBLE
                 && calendarFragmentContainer.getVisibility() == View.GONE;
     }
 
     @Override
     public void onWeekChanged(String weekRange) {
         if (findViewById(R.id.calendar_fragment_container).getVisibility() == View.VISIBLE
-                && findViewById(R.id.timelineContainer).getVisibility() == View.GONE) {
+                && dayTimeline.getVisibility() == View.GONE) {
             TextView dateTextView = findViewById(R.id.date);
             dateTextView.setText(weekRange);
         }
@@ -0,0 +1,56 @@
+package com.example.timecast;
+
+import com.example.timecast.data.EventRepository;
+
+import java.time.YearMonth;
+
+/**
+ * Everything the month grid shows for one month: the 42 cell labels and a
+ * {@link MonthSummary} of the days' events. Built on the loader thread and never
+ * modified afterwards, so it can be cached and shared between pager pages.
+ */
+public final class MonthModel {
+    public static final int CELL_COUNT = 42;
+
+    public final YearMonth month;
+    /** Day-of-month label per cell, "" for cells outside the month. */
+    final String[] dayLabels;
+    /** Cell index of day 1, so day d sits in cell firstDayOffset + d - 1. */
+    final int firstDayOffset;
+    final MonthSummary summary;
+
+    private MonthModel(YearMonth month, String[] dayLabels, int firstDayOffset, MonthSummary summary) {
+        this.month = month;
+        this.dayLabels = dayLabels;
+        this.firstDayOffset = firstDayOffset;
+        this.summary = summary;
+    }
+
+    /**
+     * Queries the month's events and builds its model. Runs on the loader thread.
+     */
+    static MonthModel load(EventRepository repository, YearMonth month) {
+        String[] dayLabels = new String[CELL_COUNT];
+
+        int daysInMonth = month.lengthOfMonth();
+        int dayOfWeek = month.atDay(1).getDayOfWeek().getValue();
+        for (int i = 1; i <= CELL_COUNT; i++) {
+            if (i <= dayOfWeek || i > daysInMonth + dayOfWeek) {
+                dayLabels[i - 1] = "";
+            } else {
+                dayLabels[i - 1] = String.valueOf(i - dayOfWeek);
+            }
+        }
+
+        MonthSummary summary = MonthSummary.build(month, repository.eventsIn(month));
+        return new MonthModel(month, dayLabels, dayOfWeek, summary);
+    }
+
+    /**
+     * @return the summary of the day in the given cell, or null if the cell is outside
+     * the month or the day has no events
+     */
+    MonthSummary.DaySummary daySummary(int cell) {
+        return summary.day(cell - firstDayOffset + 1);
+    }
+}
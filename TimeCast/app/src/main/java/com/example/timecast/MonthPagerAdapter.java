@@ -0,0 +1,124 @@
+package com.example.timecast;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.timecast.data.EventLoader;
+import com.example.timecast.metrics.RenderMetrics;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pages of the month pager, one month grid each.
+ *
+ * Position {@link #START_POSITION} is the start month and every step is one month.
+ * Each page loads its {@link MonthModel} on the loader thread; with the pager's
+ * offscreen limit set to 1 the previous and next months are bound, and so loaded,
+ * before the user swipes to them. Built models are kept in a small LRU so paging back
+ * and forth shows them immediately.
+ *
+ * {@link #refresh()} rebuilds the bound months after events changed. A page that
+ * already shows the month hands the new model to its {@link CalendarAdapter}, which
+ * rebinds only the cells that differ.
+ */
+public class MonthPagerAdapter extends RecyclerView.Adapter<MonthPagerAdapter.PageHolder> {
+    /** Months reachable on either side of the start month. */
+    private static final int MONTH_RANGE = 1200;
+    public static final int START_POSITION = MONTH_RANGE;
+    private static final int CACHE_MONTHS = 5;
+
+    private final Context context;
+    private final YearMonth startMonth;
+    private final CalendarAdapter.OnItemListener onItemListener;
+    private final LinkedHashMap<YearMonth, MonthModel> cache = new LinkedHashMap<YearMonth, MonthModel>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<YearMonth, MonthModel> eldest) {
+            return size() > CACHE_MONTHS;
+        }
+    };
+
+    public MonthPagerAdapter(Context context, YearMonth startMonth, CalendarAdapter.OnItemListener onItemListener) {
+        this.context = context.getApplicationContext();
+        this.startMonth = startMonth;
+        this.onItemListener = onItemListener;
+    }
+
+    public YearMonth monthAt(int position) {
+        return startMonth.plusMonths(position - START_POSITION);
+    }
+
+    /**
+     * Drops cached months and reloads the pages that are bound.
+     */
+    public void refresh() {
+        cache.clear();
+        notifyItemRangeChanged(0, getItemCount());
+    }
+
+    @NonNull
+    @Override
+    public PageHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.month_page, parent, false);
+        return new PageHolder(view, new CalendarAdapter(onItemListener), new EventLoader(context));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull PageHolder holder, int position) {
+        YearMonth month = monthAt(position);
+        MonthModel cached = cache.get(month);
+
+        if (cached != null) {
+            holder.loader.cancel();
+            holder.calendarAdapter.submit(cached);
+            return;
+        }
+        MonthModel shown = holder.calendarAdapter.getModel();
+        if (shown != null && !shown.month.equals(month)) {
+            // Do not leave another month's grid up while this one loads.
+            holder.calendarAdapter.submit(null);
+        }
+        holder.loader.load(repository -> {
+            long start = RenderMetrics.start();
+            MonthModel model = MonthModel.load(repository, month);
+            RenderMetrics.stage("month.load", start);
+            return model;
+        }, model -> {
+            long start = RenderMetrics.start();
+            cache.put(month, model);
+            holder.calendarAdapter.submit(model);
+            RenderMetrics.stage("month.bind", start);
+        });
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull PageHolder holder) {
+        holder.loader.cancel();
+    }
+
+    @Override
+    public int getItemCount() {
+        return 2 * MONTH_RANGE + 1;
+    }
+
+    static final class PageHolder extends RecyclerView.ViewHolder {
+        final CalendarAdapter calendarAdapter;
+        final EventLoader loader;
+
+        PageHolder(View itemView, CalendarAdapter calendarAdapter, EventLoader loader) {
+            super(itemView);
+            this.calendarAdapter = calendarAdapter;
+            this.loader = loader;
+            RecyclerView grid = (RecyclerView) itemView;
+            grid.setLayoutManager(new GridLayoutManager(itemView.getContext(), 7));
+            grid.setAdapter(calendarAdapter);
+        }
+    }
+}
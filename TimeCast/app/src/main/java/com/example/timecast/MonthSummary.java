@@ -0,0 +1,115 @@
+package com.example.timecast;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Per-day digest of a month's events for the month grid.
+ *
+ * Days are indexed by day of month, so a cell finds its record with one array read.
+ * Each record holds the event count, the first {@link #MAX_TITLES} titles and a bitmask
+ * of event types; the rest of a busy day is shown as "+N more" instead of being joined
+ * into one long string, and {@link DaySummary#hasType} lets the cell mark days with
+ * outdoor events. Built in a single pass over the month's events.
+ */
+public final class MonthSummary {
+    public static final int MAX_TITLES = 2;
+
+    public static final int TYPE_INDOOR = 1;
+    public static final int TYPE_OUTDOOR = 1 << 1;
+    public static final int TYPE_OTHER = 1 << 2;
+
+    /** Index 0 is day 1; null for days without events. */
+    private final DaySummary[] days;
+
+    private MonthSummary(DaySummary[] days) {
+        this.days = days;
+    }
+
+    static MonthSummary build(YearMonth month, List<Event> events) {
+        DaySummary[] days = new DaySummary[month.lengthOfMonth()];
+        ZoneId zone = ZoneId.systemDefault();
+        for (Event event : events) {
+            if (event.date == null) continue;
+            int index = event.date.toInstant().atZone(zone).getDayOfMonth() - 1;
+            if (index >= days.length) continue;
+            DaySummary day = days[index];
+            if (day == null) {
+                day = new DaySummary();
+                days[index] = day;
+            }
+            day.add(event);
+        }
+        return new MonthSummary(days);
+    }
+
+    /**
+     * @return the day's record, or null if nothing is planned that day
+     */
+    public DaySummary day(int dayOfMonth) {
+        if (dayOfMonth < 1 || dayOfMonth > days.length) return null;
+        return days[dayOfMonth - 1];
+    }
+
+    static int typeBit(String type) {
+        if ("Indoor".equals(type)) return TYPE_INDOOR;
+        if ("Outdoor".equals(type)) return TYPE_OUTDOOR;
+        return TYPE_OTHER;
+    }
+
+    public static final class DaySummary {
+        private int count;
+        private final String[] titles = new String[MAX_TITLES];
+        private int typeMask;
+
+        private void add(Event event) {
+            if (count < MAX_TITLES) {
+                titles[count] = event.title;
+            }
+            count++;
+            typeMask |= typeBit(event.type);
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /**
+         * @return how many titles {@link #title} can return, at most {@link #MAX_TITLES}
+         */
+        public int titleCount() {
+            return Math.min(count, MAX_TITLES);
+        }
+
+        public String title(int index) {
+            return titles[index];
+        }
+
+        /**
+         * @return events beyond the stored titles, shown as "+N more"
+         */
+        public int overflow() {
+            return count - titleCount();
+        }
+
+        public boolean hasType(int typeBit) {
+            return (typeMask & typeBit) != 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DaySummary)) return false;
+            DaySummary other = (DaySummary) o;
+            return count == other.count && typeMask == other.typeMask && Arrays.equals(titles, other.titles);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, typeMask, Arrays.hashCode(titles));
+        }
+    }
+}
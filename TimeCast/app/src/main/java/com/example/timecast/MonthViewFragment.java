@@ -1,12 +1,10 @@
 package com.example.timecast;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 
 import androidx.fragment.app.Fragment;
-import androidx.recyclerview.widget.GridLayoutManager;
-import androidx.recyclerview.widget.RecyclerView;
+import androidx.viewpager2.widget.ViewPager2;
 
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -14,16 +12,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.lang.reflect.Type;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.HashMap;
 
 
 public class MonthViewFragment extends Fragment  implements CalendarAdapter.OnItemListener{
@@ -35,9 +25,11 @@ public class MonthViewFragment extends Fragment  implements CalendarAdapter.OnIt
     private String mParam1;
     private String mParam2;
     private TextView monthYearText;
-    private RecyclerView calendarRecyclerView;
+    private ViewPager2 monthPager;
+    private MonthPagerAdapter pagerAdapter;
     private LocalDate selectedDate;
     private OnMonthChangeListener monthChangeListener;
+    private boolean paused;
 
     public MonthViewFragment() {
         // Required empty public constructor
@@ -69,25 +61,42 @@ public class MonthViewFragment extends Fragment  implements CalendarAdapter.OnIt
         // Inflate the layout for this fragment
         View view = inflater.inflate(R.layout.fragment_month_view, container, false);
 
-        calendarRecyclerView = view.findViewById(R.id.calendarRecyclerView);
-
         selectedDate = LocalDate.now();
+        pagerAdapter = new MonthPagerAdapter(requireContext(), YearMonth.from(selectedDate), this);
+        monthPager = view.findViewById(R.id.monthPager);
+        // Keeps the previous and next month bound, so they are loaded before a swipe.
+        monthPager.setOffscreenPageLimit(1);
+        monthPager.setAdapter(pagerAdapter);
+        monthPager.setCurrentItem(MonthPagerAdapter.START_POSITION, false);
+        monthPager.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
+            @Override
+            public void onPageSelected(int position) {
+                selectedDate = pagerAdapter.monthAt(position).atDay(1);
+                setMonthView();
+            }
+        });
         setMonthView();
 
         return view;
     }
 
-    private void setMonthView() {
-
-        ArrayList<String> daysInMonth = daysInMonthArray(selectedDate);
-        HashMap<String, String> taskMap = getTaskMapForMonth(selectedDate);
-
-        CalendarAdapter calendarAdapter = new CalendarAdapter(daysInMonth,this, taskMap);
-        RecyclerView.LayoutManager layoutManager = new GridLayoutManager(requireContext(), 7);
+    @Override
+    public void onPause() {
+        super.onPause();
+        paused = true;
+    }
 
-        calendarRecyclerView.setLayoutManager(layoutManager);
-        calendarRecyclerView.setAdapter(calendarAdapter);
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Events may have been edited in another screen meanwhile.
+        if (paused) {
+            paused = false;
+            pagerAdapter.refresh();
+        }
+    }
 
+    private void setMonthView() {
         if(monthChangeListener != null) {
             String monthYear = monthYearFromDate(selectedDate);
             monthChangeListener.onMonthChanged(monthYear);
@@ -95,37 +104,15 @@ public class MonthViewFragment extends Fragment  implements CalendarAdapter.OnIt
 
     }
 
-    private ArrayList<String> daysInMonthArray(LocalDate date) {
-        ArrayList<String> daysInMonthArray = new ArrayList<>();
-        YearMonth yearMonth = YearMonth.from(date);
-
-        int daysInMonth = yearMonth.lengthOfMonth();
-
-        LocalDate firstOfMonth = selectedDate.withDayOfMonth(1);
-        int dayOfWeek = firstOfMonth.getDayOfWeek().getValue();
-
-        for(int i = 1; i <= 42; i++) {
-            if(i <= dayOfWeek || i > daysInMonth + dayOfWeek){
-                daysInMonthArray.add("");
-            } else {
-                daysInMonthArray.add(String.valueOf(i - dayOfWeek));
-            }
-        }
-        return daysInMonthArray;
-    }
-
     private String monthYearFromDate(LocalDate date) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM yyyy");
-        return date.format(formatter);
+        return TimeFormats.monthYear(date);
     }
 
     public void previousMonthAction(){
-        selectedDate = selectedDate.minusMonths(1);
-        setMonthView();
+        monthPager.setCurrentItem(monthPager.getCurrentItem() - 1, true);
     }
     public void nextMonthAction(){
-        selectedDate = selectedDate.plusMonths(1);
-        setMonthView();
+        monthPager.setCurrentItem(monthPager.getCurrentItem() + 1, true);
     }
 
     @Override
@@ -140,49 +127,4 @@ public class MonthViewFragment extends Fragment  implements CalendarAdapter.OnIt
             monthChangeListener = (OnMonthChangeListener) context;
         }
     }
-
-    private ArrayList<Event> loadEvents(){
-        SharedPreferences prefs = requireContext().getSharedPreferences("TimeCastPrefs", Context.MODE_PRIVATE);
-
-        Gson gson = new Gson();
-        String json = prefs.getString("event_data", null);
-        Type type = new TypeToken<ArrayList<Event>>() {}.getType();
-
-
-        return json == null ? new ArrayList<>() : gson.fromJson(json, type);
-    }
-
-    private HashMap<String, String> getTaskMapForMonth(LocalDate selectedDate){
-        ArrayList<Event> allEvents = loadEvents();
-        HashMap<String, String> taskMap = new HashMap<>();
-
-        YearMonth yearMonth = YearMonth.from(selectedDate);
-
-        for(Event event : allEvents){
-            Calendar cal  = Calendar.getInstance();
-            cal.setTime(event.date);
-            int eventDay = cal.get(Calendar.DAY_OF_MONTH);
-            int eventMonth = cal.get(Calendar.MONTH) + 1;
-            int eventYear = cal.get(Calendar.YEAR);
-
-            if (eventYear == selectedDate.getYear() && eventMonth == selectedDate.getMonthValue()) {
-                String key = String.valueOf(eventDay);
-                String current = taskMap.getOrDefault(key, "");
-                String taskText = event.title;
-
-                taskMap.put(key, current.isEmpty() ? taskText : current + ", " + taskText);
-            }
-        }
-        return taskMap;
-    }
-
-    private void SaveEvents(ArrayList<Event> eventList){
-        SharedPreferences prefs = requireContext().getSharedPreferences("TimeCastPrefs", Context.MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-
-        Gson gson = new Gson();
-        String json = gson.toJson(eventList);
-        editor.putString("event_data", json);
-        editor.apply();
-    }
 }
\ No newline at end of file
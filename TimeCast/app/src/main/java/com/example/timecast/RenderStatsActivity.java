@@ -0,0 +1,45 @@
+package com.example.timecast;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.timecast.metrics.RenderMetrics;
+import com.example.timecast.weather.WeatherRepository;
+
+/**
+ * Debug screen listing frame and render stage percentiles from {@link RenderMetrics},
+ * followed by the forecast cache counts. Only offered in debuggable builds.
+ */
+public class RenderStatsActivity extends AppCompatActivity {
+    private TextView statsText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_render_stats);
+
+        statsText = findViewById(R.id.statsText);
+        Button dumpButton = findViewById(R.id.btnDumpStats);
+        Button resetButton = findViewById(R.id.btnResetStats);
+
+        dumpButton.setOnClickListener(v -> RenderMetrics.dump());
+        resetButton.setOnClickListener(v -> {
+            RenderMetrics.reset();
+            showStats();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showStats();
+    }
+
+    private void showStats() {
+        statsText.setText(RenderMetrics.report()
+                + "Forecast cache\n" + WeatherRepository.getInstance(this).getCacheStats());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.timecast;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Date and time strings shown across the app, from one place.
+ *
+ * Formatters are immutable java.time {@link DateTimeFormatter}s, so they are shared by
+ * every screen and background thread instead of each call site building its own
+ * SimpleDateFormat. The labels drawn over and over are cached as strings: clock labels
+ * per minute of the day, time ranges per start and end minute, and day headers per
+ * day. Formatters and caches are rebuilt when the default locale changes.
+ */
+public final class TimeFormats {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int TIME_RANGE_CACHE_SIZE = 256;
+    private static final int DAY_HEADER_CACHE_SIZE = 64;
+
+    /** Hourly forecast times of the weather API, such as "2024-05-01T14:00". */
+    public static final DateTimeFormatter FORECAST_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm", Locale.US);
+
+    private static Formats formats;
+
+    private TimeFormats() {
+    }
+
+    /**
+     * @return "HH:mm" for a minute of the day, from a per-minute cache
+     */
+    public static String clock(int minuteOfDay) {
+        Formats current = current();
+        synchronized (current) {
+            return clock(current, Math.floorMod(minuteOfDay, MINUTES_PER_DAY));
+        }
+    }
+
+    private static String clock(Formats current, int minute) {
+        String label = current.clockLabels[minute];
+        if (label == null) {
+            label = LocalTime.of(minute / 60, minute % 60).format(current.time);
+            current.clockLabels[minute] = label;
+        }
+        return label;
+    }
+
+    /**
+     * @return "HH:mm - HH:mm" in the device time zone
+     */
+    public static String timeRange(Date start, Date end) {
+        Formats current = current();
+        int startMinute = minuteOfDay(start);
+        int endMinute = minuteOfDay(end);
+        int key = startMinute * MINUTES_PER_DAY + endMinute;
+        synchronized (current) {
+            String label = current.timeRanges.get(key);
+            if (label == null) {
+                label = clock(current, startMinute) + " - " + clock(current, endMinute);
+                current.timeRanges.put(key, label);
+            }
+            return label;
+        }
+    }
+
+    /**
+     * @return e.g. "Wednesday, May 1, 2024", from a small per-day cache
+     */
+    public static String dayHeader(LocalDate day) {
+        Formats current = current();
+        synchronized (current) {
+            String label = current.dayHeaders.get(day);
+            if (label == null) {
+                label = day.format(current.dayHeader);
+                current.dayHeaders.put(day, label);
+            }
+            return label;
+        }
+    }
+
+    /**
+     * @return e.g. "Wed, May 1"
+     */
+    public static String dayTitle(LocalDate day) {
+        return day.format(current().dayTitle);
+    }
+
+    /**
+     * @return e.g. "May 1"
+     */
+    public static String monthDay(LocalDate day) {
+        return day.format(current().monthDay);
+    }
+
+    /**
+     * @return e.g. "May 2024"
+     */
+    public static String monthYear(LocalDate day) {
+        return day.format(current().monthYear);
+    }
+
+    /**
+     * @return e.g. "05/01/2024"
+     */
+    public static String numericDate(LocalDate day) {
+        return day.format(current().numericDate);
+    }
+
+    /**
+     * Parses a {@link #FORECAST_TIME} string as a time in the device time zone.
+     *
+     * @return epoch millis
+     */
+    public static long parseForecastTime(String text) {
+        return LocalDateTime.parse(text, FORECAST_TIME).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static int minuteOfDay(Date date) {
+        ZonedDateTime time = Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault());
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static synchronized Formats current() {
+        Locale locale = Locale.getDefault();
+        if (formats == null || !formats.locale.equals(locale)) {
+            formats = new Formats(locale);
+        }
+        return formats;
+    }
+
+    /**
+     * Formatters and label caches for one locale.
+     */
+    private static final class Formats {
+        final Locale locale;
+        final DateTimeFormatter time;
+        final DateTimeFormatter dayTitle;
+        final DateTimeFormatter dayHeader;
+        final DateTimeFormatter monthDay;
+        final DateTimeFormatter monthYear;
+        final DateTimeFormatter numericDate;
+
+        final String[] clockLabels = new String[MINUTES_PER_DAY];
+        final LinkedHashMap<Integer, String> timeRanges = new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > TIME_RANGE_CACHE_SIZE;
+            }
+        };
+        final LinkedHashMap<LocalDate, String> dayHeaders = new LinkedHashMap<LocalDate, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, String> eldest) {
+                return size() > DAY_HEADER_CACHE_SIZE;
+            }
+        };
+
+        Formats(Locale locale) {
+            this.locale = locale;
+            time = DateTimeFormatter.ofPattern("HH:mm", locale);
+            dayTitle = DateTimeFormatter.ofPattern("EEE, MMM d", locale);
+            dayHeader = DateTimeFormatter.ofPattern("EEEE, MMM d, yyyy", locale);
+            monthDay = DateTimeFormatter.ofPattern("MMM d", locale);
+            monthYear = DateTimeFormatter.ofPattern("MMMM yyyy", locale);
+            numericDate = DateTimeFormatter.ofPattern("MM/dd/yyyy", locale);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.timecast;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.timecast.data.EventGson;
+import com.example.timecast.data.EventRepository;
+import com.example.timecast.data.EventWriteBuffer;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Today's timeline, already laid out, in a small file of its own.
+ *
+ * MainActivity reads it in onCreate and draws today straight away, before the event
+ * store has been opened; the regular load replaces it a moment later. The file only
+ * ever holds one day, so reading it costs the same however much history the calendar
+ * has. It is rewritten in the background whenever MainActivity lays out today, after
+ * every stored write batch and, through {@link TodaySnapshotReceiver}, just after
+ * midnight. The midnight alarm is set again at every launch and after a reboot, which
+ * clears it. A snapshot for another day is ignored.
+ */
+public final class TodaySnapshot {
+    private static final String TAG = "TodaySnapshot";
+    private static final String FILE_NAME = "today_snapshot.json";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "today-snapshot"));
+    private static boolean installed;
+
+    private TodaySnapshot() {
+    }
+
+    /**
+     * Starts keeping the snapshot current: refreshes it after every write batch and
+     * schedules the midnight refresh. Safe to call more than once.
+     */
+    public static synchronized void install(Context context) {
+        if (installed) return;
+        installed = true;
+        Context appContext = context.getApplicationContext();
+        // Getting the buffer opens the store, which must stay off the main thread.
+        writer.execute(() -> EventWriteBuffer.getInstance(appContext)
+                .addWriteListener((saved, deletedIds) -> refresh(appContext, null)));
+        scheduleMidnightRefresh(appContext);
+    }
+
+    /**
+     * Reads the snapshot. The file is a single day of events, small enough to read on
+     * the main thread.
+     *
+     * @return the saved layout, or null if there is none for {@code today}
+     */
+    @Nullable
+    public static EventLayoutEngine.DayLayout read(Context context, LocalDate today) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        if (!file.exists()) return null;
+        try (Reader reader = new FileReader(file)) {
+            Stored stored = EventGson.get().fromJson(reader, Stored.class);
+            if (stored == null || stored.epochDay != today.toEpochDay() || !stored.isComplete()) return null;
+            return EventLayoutEngine.restore(stored.epochDay, stored.events, stored.startMinute, stored.endMinute,
+                    stored.column, stored.columnCount);
+        } catch (IOException | JsonParseException e) {
+            Log.w(TAG, "Ignoring unreadable snapshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves a layout the caller has already built, in the background, if it is today's.
+     */
+    public static void save(Context context, EventLayoutEngine.DayLayout layout) {
+        if (layout.epochDay != LocalDate.now().toEpochDay()) return;
+        Context appContext = context.getApplicationContext();
+        writer.execute(() -> {
+            try {
+                write(appContext, new Stored(layout));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write today's snapshot", e);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the snapshot for the current day in the background.
+     *
+     * @param onDone run on the snapshot thread once written; may be null
+     */
+    public static void refresh(Context context, @Nullable Runnable onDone) {
+        Context appContext = context.getApplicationContext();
+        writer.execute(() -> {
+            try {
+                LocalDate today = LocalDate.now();
+                EventLayoutEngine.DayLayout layout = EventLayoutEngine.getInstance()
+                        .layoutDay(today, EventRepository.getInstance(appContext).eventsOn(today));
+                write(appContext, new Stored(layout));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write today's snapshot", e);
+            } finally {
+                if (onDone != null) onDone.run();
+            }
+        });
+    }
+
+    private static void write(Context context, Stored stored) throws IOException {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        File tmp = new File(context.getFilesDir(), FILE_NAME + TMP_SUFFIX);
+        try (Writer out = new FileWriter(tmp)) {
+            EventGson.get().toJson(stored, out);
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Sets a non-waking alarm for the next midnight. If the device sleeps through it
+     * the refresh runs when it wakes, and until then {@link #read} skips the stale day.
+     */
+    static void scheduleMidnightRefresh(Context context) {
+        long midnight = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Intent intent = new Intent(context, TodaySnapshotReceiver.class);
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.set(AlarmManager.RTC, midnight, pendingIntent);
+    }
+
+    /**
+     * File form of a {@link EventLayoutEngine.DayLayout}.
+     */
+    private static final class Stored {
+        long epochDay;
+        Event[] events;
+        int[] startMinute;
+        int[] endMinute;
+        int[] column;
+        int[] columnCount;
+
+        Stored() {
+        }
+
+        Stored(EventLayoutEngine.DayLayout layout) {
+            epochDay = layout.epochDay;
+            events = layout.events;
+            startMinute = layout.startMinute;
+            endMinute = layout.endMinute;
+            column = layout.column;
+            columnCount = layout.columnCount;
+        }
+
+        boolean isComplete() {
+            if (events == null || startMinute == null || endMinute == null || column == null || columnCount == null) {
+                return false;
+            }
+            int n = events.length;
+            return startMinute.length == n && endMinute.length == n && column.length == n && columnCount.length == n;
+        }
+    }
+}
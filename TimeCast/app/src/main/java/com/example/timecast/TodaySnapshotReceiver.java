@@ -0,0 +1,18 @@
+package com.example.timecast;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Midnight alarm set by {@link TodaySnapshot}: rewrites the snapshot for the new day and
+ * schedules the next one. Also runs on boot, since alarms do not survive a reboot.
+ */
+public class TodaySnapshotReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        PendingResult result = goAsync();
+        TodaySnapshot.scheduleMidnightRefresh(context);
+        TodaySnapshot.refresh(context, result::finish);
+    }
+}
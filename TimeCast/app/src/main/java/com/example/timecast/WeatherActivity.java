@@ -29,8 +29,7 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.imageview.ShapeableImageView;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Locale;
 
@@ -56,7 +55,7 @@ public class WeatherActivity extends AppCompatActivity {
         showDefaultWeatherData();
         
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
-        weatherRepository = WeatherRepository.getInstance();
+        weatherRepository = WeatherRepository.getInstance(this);
 
         setupSearchFunctionality();
         setupSettingsButton();
@@ -123,8 +122,7 @@ public class WeatherActivity extends AppCompatActivity {
         TextView forecastRainTextView = findViewById(R.id.forecast_rain);
         TextView forecastRainTimeTextView = findViewById(R.id.forecast_rain_time);
         
-        SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy", Locale.getDefault());
-        String currentDate = dateFormat.format(new Date());
+        String currentDate = TimeFormats.numericDate(LocalDate.now());
         
         eventDateTextView.setText(currentDate);
         eventTimeTextView.setText("4:00pm - 5:00pm");
@@ -272,8 +270,7 @@ public class WeatherActivity extends AppCompatActivity {
         TextView forecastRainTextView = findViewById(R.id.forecast_rain);
         TextView forecastRainTimeTextView = findViewById(R.id.forecast_rain_time);
         
-        SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy", Locale.getDefault());
-        String currentDate = dateFormat.format(new Date());
+        String currentDate = TimeFormats.numericDate(LocalDate.now());
         
         eventDateTextView.setText(currentDate);
         forecastRainTextView.setText(currentDate);
@@ -0,0 +1,274 @@
+package com.example.timecast;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.DragEvent;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.example.timecast.metrics.RenderMetrics;
+
+import java.util.List;
+
+/**
+ * Whole week in one view: a time gutter, seven day columns and the event blocks.
+ *
+ * The grid (background, half-hour lines, column dividers and time labels) never
+ * changes with the week shown, so it comes from {@link GridLayerCache}, rendered once
+ * per size and configuration and shared by every week view, and {@link #onDraw} only
+ * blits it and draws the blocks. Paging to another week calls
+ * {@link #setWeek}, which rebuilds the small block model and invalidates; nothing is
+ * inflated or laid out.
+ *
+ * A long press on a block starts a drag with its {@link Event} as local state; blocks
+ * and dragging are handled by {@link EventBlocks}, shared with {@link DayTimelineView}.
+ * While a block moves, a {@link DragPreview} shows the day and time it would land on,
+ * snapped to {@link #setSnapMinutes} slots and red if it conflicts with that day's
+ * events, and a drop reports them to the {@link OnEventMoveListener}.
+ */
+public class WeekGridView extends View {
+    public static final int START_HOUR = 8;
+    public static final int END_HOUR = 20;
+    public static final int DAYS = 7;
+    private static final int LABEL_STEP_MINUTES = 30;
+    private static final int TOTAL_MINUTES = (END_HOUR - START_HOUR) * 60;
+
+    /** Same scale as the old column layout: 60dp per hour. */
+    private static final float DP_PER_MINUTE = 1f;
+    /** Gutter width, matched by the spacer in front of the day headers. */
+    public static final int GUTTER_DP = 50;
+
+    public interface OnEventMoveListener {
+        /**
+         * @param day         day column dropped on, 0 for Sunday
+         * @param startMinute new start in minutes since midnight, snapped to the slot grid
+         */
+        void onEventMove(Event event, int day, int startMinute);
+    }
+
+    private final Paint gridPaint = new Paint();
+    private final Paint dividerPaint = new Paint();
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final GestureDetector gestureDetector;
+
+    private final float density;
+    private final float pxPerMinute;
+    private final float gutterWidth;
+    private final float blockInset;
+    private final String[] labels;
+
+    private final EventBlocks eventBlocks;
+    private final EventLayoutEngine.DayLayout[] dayLayouts = new EventLayoutEngine.DayLayout[DAYS];
+    private int snapMinutes = DragPreview.FINE_SNAP_MINUTES;
+    private OnEventMoveListener onEventMoveListener;
+
+    public WeekGridView(Context context) {
+        this(context, null);
+    }
+
+    public WeekGridView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public WeekGridView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        density = getResources().getDisplayMetrics().density;
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+        pxPerMinute = DP_PER_MINUTE * density;
+        gutterWidth = GUTTER_DP * density;
+        blockInset = density;
+
+        gridPaint.setColor(Color.LTGRAY);
+        gridPaint.setStrokeWidth(Math.max(1f, density / 2));
+        dividerPaint.setColor(Color.BLACK);
+        dividerPaint.setStrokeWidth(density);
+
+        labelPaint.setColor(Color.DKGRAY);
+        labelPaint.setTextSize(12 * scaledDensity);
+
+        labels = new String[TOTAL_MINUTES / LABEL_STEP_MINUTES];
+        for (int i = 0; i < labels.length; i++) {
+            int minutes = START_HOUR * 60 + i * LABEL_STEP_MINUTES;
+            labels[i] = TimeFormats.clock(minutes);
+        }
+
+        eventBlocks = new EventBlocks(this, 6 * density, 4 * density);
+
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(MotionEvent e) {
+                performClick();
+                return true;
+            }
+
+            @Override
+            public void onLongPress(MotionEvent e) {
+                eventBlocks.startDrag(e, pxPerMinute);
+            }
+        });
+    }
+
+    /**
+     * Shows a new week.
+     *
+     * @param days seven layouts from {@link EventLayoutEngine}, Sunday first. Events
+     *             outside {@link #START_HOUR}-{@link #END_HOUR} are not shown.
+     */
+    public void setWeek(List<EventLayoutEngine.DayLayout> days) {
+        eventBlocks.clear();
+        for (int day = 0; day < DAYS; day++) {
+            dayLayouts[day] = day < days.size() ? days.get(day) : null;
+        }
+        for (int day = 0; day < DAYS && day < days.size(); day++) {
+            EventLayoutEngine.DayLayout layout = days.get(day);
+            for (int i = 0; i < layout.size(); i++) {
+                int start = layout.startMinute[i] - START_HOUR * 60;
+                int end = layout.endMinute[i] - START_HOUR * 60;
+                if (start < 0 || end > TOTAL_MINUTES || end <= start) continue;
+
+                eventBlocks.add(layout.events[i], day, start, end, layout.column[i], layout.columnCount[i]);
+            }
+        }
+        layoutBlocks();
+        invalidate();
+    }
+
+    public void setOnEventMoveListener(OnEventMoveListener listener) {
+        onEventMoveListener = listener;
+    }
+
+    /**
+     * Sets the slot size dragged events snap to. Defaults to 5 minutes, since a move
+     * within the week usually fine-tunes a time rather than re-plans the day.
+     */
+    public void setSnapMinutes(int minutes) {
+        snapMinutes = minutes;
+    }
+
+    /**
+     * @return the day column under x, 0 for Sunday, clamped to the week
+     */
+    private int dayAt(float x) {
+        int day = (int) ((x - gutterWidth) / columnWidth());
+        return Math.max(0, Math.min(DAYS - 1, day));
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int height = (int) Math.ceil(TOTAL_MINUTES * pxPerMinute);
+        setMeasuredDimension(
+                getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutBlocks();
+    }
+
+    private float columnWidth() {
+        return (getWidth() - gutterWidth) / DAYS;
+    }
+
+    private void layoutBlocks() {
+        float columnWidth = columnWidth();
+        for (EventBlocks.Block block : eventBlocks.blocks) {
+            float dayLeft = gutterWidth + block.day * columnWidth + blockInset;
+            float slotWidth = (columnWidth - 2 * blockInset) / block.columnCount;
+            float left = dayLeft + block.column * slotWidth;
+            block.rect.set(left, block.startMinute * pxPerMinute,
+                    left + slotWidth - (block.column < block.columnCount - 1 ? blockInset : 0),
+                    block.endMinute * pxPerMinute);
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (getWidth() == 0 || getHeight() == 0) return;
+        long start = RenderMetrics.start();
+
+        Bitmap grid = GridLayerCache.get(getContext(), "week", getWidth(), getHeight(), true, this::drawGrid);
+        canvas.drawBitmap(grid, 0, 0, null);
+
+        eventBlocks.draw(canvas);
+        RenderMetrics.stage("week.draw", start);
+    }
+
+    private void drawGrid(Canvas canvas, int width, int height) {
+        canvas.drawColor(Color.WHITE);
+        float labelBaseline = 4 * density - labelPaint.ascent();
+        for (int i = 0; i < labels.length; i++) {
+            float y = i * LABEL_STEP_MINUTES * pxPerMinute;
+            canvas.drawLine(gutterWidth, y, width, y, gridPaint);
+            canvas.drawText(labels[i], 4 * density, y + labelBaseline, labelPaint);
+        }
+        float columnWidth = (width - gutterWidth) / DAYS;
+        for (int day = 0; day < DAYS; day++) {
+            float x = gutterWidth + day * columnWidth;
+            canvas.drawLine(x, 0, x, height, dividerPaint);
+        }
+    }
+
+    @Override
+    public boolean onDragEvent(DragEvent event) {
+        return eventBlocks.onDragEvent(event, dragTarget);
+    }
+
+    private final EventBlocks.DragTarget dragTarget = new EventBlocks.DragTarget() {
+        @Override
+        public void moveDragPreview(float x, float y) {
+            WeekGridView.this.moveDragPreview(x, y);
+        }
+
+        @Override
+        public void onDrop(Event event, int day, int startMinute) {
+            if (onEventMoveListener != null) {
+                onEventMoveListener.onEventMove(event, day, startMinute);
+            }
+        }
+    };
+
+    /**
+     * Snaps the dragged event under the pointer to a day and slot and moves the preview
+     * there. Runs for every move, so it only updates fields and invalidates on a change.
+     */
+    private void moveDragPreview(float x, float y) {
+        DragPreview dragPreview = eventBlocks.dragPreview;
+        int day = dayAt(x);
+        float minute = START_HOUR * 60 + y / pxPerMinute - dragPreview.grabMinutes;
+        int lastStart = END_HOUR * 60 - Math.min(dragPreview.durationMinutes, TOTAL_MINUTES);
+        int start = DragPreview.snap(minute, snapMinutes, START_HOUR * 60, lastStart);
+        if (!dragPreview.moveTo(day, start, dayLayouts[day])) return;
+
+        int end = Math.min(start + dragPreview.durationMinutes, END_HOUR * 60);
+        float columnWidth = columnWidth();
+        float left = gutterWidth + day * columnWidth + blockInset;
+        dragPreview.rect.set(left, (start - START_HOUR * 60) * pxPerMinute,
+                left + columnWidth - 2 * blockInset, (end - START_HOUR * 60) * pxPerMinute);
+        invalidate();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return gestureDetector.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+}
@@ -1,65 +1,70 @@
 package com.example.timecast;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.os.Bundle;
-import android.util.Log;
-import android.view.DragEvent;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.LinearLayout;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.fragment.app.Fragment;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.example.timecast.data.EventLoader;
+import com.example.timecast.data.EventRepository;
+import com.example.timecast.metrics.RenderMetrics;
 
-import java.lang.reflect.Type;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Locale;
+import java.util.List;
 
 public class WeekViewFragment extends Fragment {
 
-    private static final int START_HOUR = 8;
-    private static final int END_HOUR = 20;
-    private static final int SLOT_HEIGHT_DP = 60;
-    private final String PREF_KEY = "event_data";
-
-    private LinearLayout weekTimeLineContainer;
-    private LinearLayout timeLabelColumn;
+    private WeekGridView weekGrid;
     private LinearLayout weekDayHeaders;
+    private Calendar shownWeekStart;
     private Calendar currentWeekStart = null;
     private OnWeekChangeListener weekChangeListener;
-
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    private EventLoader weekLoader;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_week_view, container, false);
 
-        timeLabelColumn = view.findViewById(R.id.timeLabelColumn);
-        weekTimeLineContainer = view.findViewById(R.id.weekTimelineContainer);
+        weekGrid = view.findViewById(R.id.weekGrid);
         weekDayHeaders = view.findViewById(R.id.weekDayHeaders);
+        weekLoader = new EventLoader(requireContext());
 
         buildWeekDayHeaders();
-        buildTimeLabels();
-        setupWeekColumns();
+        setupWeekGrid();
+        loadWeek();
 
         return view;
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        EventLoader.flush(requireContext());
+    }
+
+    @Override
+    public void onDestroyView() {
+        weekLoader.cancel();
+        super.onDestroyView();
+    }
+
     private void buildWeekDayHeaders() {
         weekDayHeaders.removeAllViews();
         String[] dayLabels = {"S", "M", "T", "W", "T", "F", "S"};
 
         View timeSpacer = new View(requireContext());
-        timeSpacer.setLayoutParams(new LinearLayout.LayoutParams(dpToPx(50), ViewGroup.LayoutParams.MATCH_PARENT));
+        timeSpacer.setLayoutParams(new LinearLayout.LayoutParams(dpToPx(WeekGridView.GUTTER_DP), ViewGroup.LayoutParams.MATCH_PARENT));
         weekDayHeaders.addView(timeSpacer);
 
         for (String label : dayLabels) {
@@ -73,147 +78,78 @@ public class WeekViewFragment extends Fragment {
         }
     }
 
-    private void buildTimeLabels() {
-        timeLabelColumn.removeAllViews();
-        for (int hour = START_HOUR; hour < END_HOUR; hour++) {
-            for (int half = 0; half < 2; half++) {
-                TextView label = new TextView(getContext());
-                label.setText(String.format(Locale.getDefault(), "%02d:%02d", hour, half == 0 ? 0 : 30));
-                label.setTextSize(12);
-                label.setTextColor(Color.DKGRAY);
-                label.setPadding(4, 4, 4, 4);
-                label.setLayoutParams(new LinearLayout.LayoutParams(
-                        ViewGroup.LayoutParams.WRAP_CONTENT, dpToPx(SLOT_HEIGHT_DP / 2)));
-                timeLabelColumn.addView(label);
-            }
-        }
-    }
-
-    private void setupWeekColumns() {
-        weekTimeLineContainer.removeAllViews();
+    private void loadWeek() {
         currentWeekStart = (currentWeekStart != null) ? (Calendar) currentWeekStart.clone() : GetStartOfCurrentWeek();
-        ArrayList<Event> allEvents = loadEvents();
+        Calendar weekStart = (Calendar) currentWeekStart.clone();
+        weekLoader.load(repository -> {
+                    long start = RenderMetrics.start();
+                    List<EventLayoutEngine.DayLayout> days = layoutWeek(repository, toLocalDate(weekStart));
+                    RenderMetrics.stage("week.load", start);
+                    return days;
+                },
+                days -> {
+                    long start = RenderMetrics.start();
+                    shownWeekStart = weekStart;
+                    weekGrid.setWeek(days);
+                    RenderMetrics.stage("week.bind", start);
+                });
+    }
 
+    /**
+     * One range query for the whole week, split into per-day buckets and laid out.
+     * Runs on the loader thread.
+     */
+    private static List<EventLayoutEngine.DayLayout> layoutWeek(EventRepository repository, LocalDate weekStart) {
+        List<List<Event>> eventsByDay = new ArrayList<>();
         for (int i = 0; i < 7; i++) {
-            Calendar day = (Calendar) currentWeekStart.clone();
-            day.add(Calendar.DAY_OF_YEAR, i);
-
-            LinearLayout dayColumn = new LinearLayout(getContext());
-            dayColumn.setOrientation(LinearLayout.VERTICAL);
-
-            dayColumn.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.MATCH_PARENT, 1f));
-            dayColumn.setBackgroundColor(Color.WHITE); // visible base
-
-            dayColumn.setFocusable(true);
-            dayColumn.setClickable(true);
-
-            dayColumn.setOnDragListener((view, dragEvent) -> {
-                Log.d("WeekViewDrag", "DragEvent: " + dragEvent.getAction());
-                switch (dragEvent.getAction()) {
-                    case DragEvent.ACTION_DRAG_STARTED:
-                        return true;
-                    case DragEvent.ACTION_DROP:
-                        float dropY = dragEvent.getY();
-                        int minutesFromTop = (int) (dropY / getResources().getDisplayMetrics().density);
-                        int newStartMinutes = minutesFromTop + START_HOUR * 60;
-
-                        Event draggedEvent = (Event) dragEvent.getLocalState();
-
-                        Calendar newStart = (Calendar) day.clone();
-                        newStart.set(Calendar.HOUR_OF_DAY, newStartMinutes / 60);
-                        newStart.set(Calendar.MINUTE, newStartMinutes % 60);
-
-                        Calendar newEnd = (Calendar) newStart.clone();
-                        long durationMillis = draggedEvent.endTime.getTime() - draggedEvent.startTime.getTime();
-                        newEnd.setTimeInMillis(newStart.getTimeInMillis() + durationMillis);
-
-                        draggedEvent.startTime = newStart.getTime();
-                        draggedEvent.endTime = newEnd.getTime();
-                        draggedEvent.date = newStart.getTime();
-
-                        saveUpdatedEvent(draggedEvent);
-                        refreshWeekView();
-                        return true;
-                    case DragEvent.ACTION_DRAG_ENDED:
-                        return true;
-                    default:
-                        return false;
-                }
-            });
-
-            addEventsToDayColumn(day, allEvents, dayColumn);
-            weekTimeLineContainer.addView(dayColumn);
+            eventsByDay.add(new ArrayList<>());
+        }
+        for (Event event : repository.eventsBetween(weekStart, weekStart.plusDays(7))) {
+            LocalDate day = event.date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            eventsByDay.get((int) (day.toEpochDay() - weekStart.toEpochDay())).add(event);
+        }
 
-            if (i < 6) {
-                View divider = new View(getContext());
-                LinearLayout.LayoutParams dividerParams = new LinearLayout.LayoutParams(dpToPx(1), ViewGroup.LayoutParams.MATCH_PARENT);
-                divider.setLayoutParams(dividerParams);
-                divider.setBackgroundColor(Color.BLACK); // ← the visible divider
-                weekTimeLineContainer.addView(divider);
-            }
+        List<EventLayoutEngine.DayLayout> days = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            days.add(EventLayoutEngine.getInstance().layoutDay(weekStart.plusDays(i), eventsByDay.get(i)));
         }
+        return days;
     }
 
-    private void addEventsToDayColumn(Calendar day, ArrayList<Event> events, LinearLayout column) {
-        column.removeAllViews();
-        for (Event event : events) {
-            Calendar eventDay = Calendar.getInstance();
-            eventDay.setTime(event.date);
-            if (eventDay.get(Calendar.YEAR) != day.get(Calendar.YEAR) ||
-                    eventDay.get(Calendar.DAY_OF_YEAR) != day.get(Calendar.DAY_OF_YEAR)) {
-                continue;
-            }
-
-            Calendar start = Calendar.getInstance();
-            start.setTime(event.startTime);
-            int startMinutes = start.get(Calendar.HOUR_OF_DAY) * 60 + start.get(Calendar.MINUTE);
-            int offsetMinutes = startMinutes - START_HOUR * 60;
-
-            Calendar end = Calendar.getInstance();
-            end.setTime(event.endTime);
-            int endMinutes = end.get(Calendar.HOUR_OF_DAY) * 60 + end.get(Calendar.MINUTE);
-            int durationMinutes = endMinutes - startMinutes;
-
-            if (offsetMinutes < 0 || offsetMinutes + durationMinutes > (END_HOUR - START_HOUR) * 60) continue;
-
-            TextView eventBlock = new TextView(getContext());
-            eventBlock.setText(String.format("%s\n%s\n%s", event.title, event.getFormattedTimeRange(), event.type));
-            eventBlock.setTextColor(Color.WHITE);
-            eventBlock.setTextSize(12);
-            eventBlock.setGravity(Gravity.TOP);
-            eventBlock.setBackgroundResource(R.drawable.activity_background);
-            eventBlock.setPadding(dpToPx(6), dpToPx(4), dpToPx(6), dpToPx(4));
-
-            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
-                    ViewGroup.LayoutParams.MATCH_PARENT, dpToPx(durationMinutes));
-            params.topMargin = dpToPx(offsetMinutes);
-            eventBlock.setLayoutParams(params);
-
-            eventBlock.setOnLongClickListener(v -> {
-                View.DragShadowBuilder shadowBuilder = new View.DragShadowBuilder(v);
-                v.startDragAndDrop(null, shadowBuilder, event, 0);
-                return true;
-            });
+    private void setupWeekGrid() {
+        weekGrid.setOnEventMoveListener((draggedEvent, day, newStartMinutes) -> {
+            if (shownWeekStart == null) return;
 
-            column.addView(eventBlock);
-        }
-    }
+            Calendar newStart = (Calendar) shownWeekStart.clone();
+            newStart.add(Calendar.DAY_OF_YEAR, day);
+            newStart.set(Calendar.HOUR_OF_DAY, newStartMinutes / 60);
+            newStart.set(Calendar.MINUTE, newStartMinutes % 60);
 
-    private void saveUpdatedEvent(Event updatedEvent) {
-        SharedPreferences prefs = requireContext().getSharedPreferences("TimeCastPrefs", Context.MODE_PRIVATE);
-        String json = prefs.getString("event_data", null);
-        Type type = new TypeToken<ArrayList<Event>>() {}.getType();
-        ArrayList<Event> allEvents = (json != null) ? new Gson().fromJson(json, type) : new ArrayList<>();
-
-        for (int i = 0; i < allEvents.size(); i++) {
-            Event e = allEvents.get(i);
-            if (e.id.equals(updatedEvent.id)) {
-                allEvents.set(i, updatedEvent);
-                break;
-            }
-        }
+            Calendar newEnd = (Calendar) newStart.clone();
+            long durationMillis = draggedEvent.endTime.getTime() - draggedEvent.startTime.getTime();
+            newEnd.setTimeInMillis(newStart.getTimeInMillis() + durationMillis);
+
+            Event movedEvent = draggedEvent.copy();
+            movedEvent.startTime = newStart.getTime();
+            movedEvent.endTime = newEnd.getTime();
+            movedEvent.date = newStart.getTime();
 
-        prefs.edit().putString("event_data", new Gson().toJson(allEvents)).apply();
+            // A loader of its own, so a later week load or drop cannot cancel this save
+            new EventLoader(requireContext()).load(repository -> {
+                if (!repository.findConflicts(movedEvent.startTime, movedEvent.endTime, movedEvent.id).isEmpty()) {
+                    return false;
+                }
+                repository.save(movedEvent);
+                return true;
+            }, moved -> {
+                if (getView() == null) return;
+                if (!moved) {
+                    Toast.makeText(getContext(), "Time conflict with another event!", Toast.LENGTH_LONG).show();
+                    return;
+                }
+                loadWeek();
+            });
+        });
     }
 
     private int dpToPx(int dp) {
@@ -221,11 +157,8 @@ public class WeekViewFragment extends Fragment {
         return (int) (dp * scale + 0.5f);
     }
 
-    private ArrayList<Event> loadEvents() {
-        SharedPreferences prefs = requireContext().getSharedPreferences("TimeCastPrefs", Context.MODE_PRIVATE);
-        String json = prefs.getString(PREF_KEY, null);
-        Type type = new TypeToken<ArrayList<Event>>() {}.getType();
-        return (json != null) ? new Gson().fromJson(json, type) : new ArrayList<>();
+    private static LocalDate toLocalDate(Calendar day) {
+        return LocalDate.of(day.get(Calendar.YEAR), day.get(Calendar.MONTH) + 1, day.get(Calendar.DAY_OF_MONTH));
     }
 
     private Calendar GetStartOfCurrentWeek() {
@@ -250,14 +183,10 @@ public class WeekViewFragment extends Fragment {
     private void refreshWeekView() {
 
         if (currentWeekStart == null) currentWeekStart = GetStartOfCurrentWeek();
-        buildWeekDayHeaders();
-        buildTimeLabels();
-        setupWeekColumns();
+        loadWeek();
         if (weekChangeListener != null) {
-            SimpleDateFormat fmt = new SimpleDateFormat("MMM d", Locale.getDefault());
-            Calendar end = (Calendar) currentWeekStart.clone();
-            end.add(Calendar.DAY_OF_YEAR, 6);
-            String range = fmt.format(currentWeekStart.getTime()) + " - " + fmt.format(end.getTime());
+            LocalDate start = toLocalDate(currentWeekStart);
+            String range = TimeFormats.monthDay(start) + " - " + TimeFormats.monthDay(start.plusDays(6));
             weekChangeListener.onWeekChanged(range);
         }
     }
@@ -0,0 +1,304 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Versioned, column-oriented binary snapshot that is read through a memory map.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int magic, int version, int rowCount
+ *   short typeCount, then per type: short byteLength + UTF-8 bytes
+ *   columns, rowCount entries each, rows sorted by date:
+ *     long idMsb, long idLsb, int idRef, int dateMinutes, int startMinutes,
+ *     int endMinutes, byte typeCode, int titleRef, int descriptionRef, int locationRef
+ *   int heapLength, heap bytes
+ * </pre>
+ * Times are minutes since the epoch. A string ref is a byte offset into the heap,
+ * where each distinct string is stored once as int length + UTF-8 bytes. Ids that are
+ * UUIDs are stored in the two long columns; any other id is kept as a heap string in
+ * idRef so that it reads back unchanged. Version 1 files have no idRef column.
+ *
+ * Because rows are sorted by date, {@link #readRange} binary-searches the date column
+ * and decodes only the matching rows, which is how a day of a month not cached yet is
+ * read; nothing else in the file is touched.
+ */
+class BinaryEventFile implements SnapshotFormat {
+    private static final int MAGIC = 0x54434556; // "TCEV"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_ID_REF = 1;
+
+    private static final int NO_REF = -1;
+    private static final int NO_TYPE = 0xFF;
+    private static final int NULL_MINUTES = Integer.MIN_VALUE;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    @Override
+    public String extension() {
+        return ".bin";
+    }
+
+    @Override
+    public void write(File file, Collection<Event> source) throws IOException {
+        Event[] rows = source.toArray(new Event[0]);
+        Arrays.sort(rows, (a, b) -> Integer.compare(toMinutes(a.date), toMinutes(b.date)));
+        int n = rows.length;
+
+        HashMap<String, Integer> typeCodes = new HashMap<>();
+        ArrayList<String> types = new ArrayList<>();
+        for (Event e : rows) {
+            if (e.type != null && !typeCodes.containsKey(e.type)) {
+                if (types.size() == NO_TYPE) {
+                    throw new IOException("Too many distinct event types for binary snapshot");
+                }
+                typeCodes.put(e.type, types.size());
+                types.add(e.type);
+            }
+        }
+
+        StringHeap heap = new StringHeap();
+        UUID[] ids = new UUID[n];
+        int[] idRefs = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = toUuid(rows[i].id);
+            idRefs[i] = ids[i] == null ? heap.add(rows[i].id) : NO_REF;
+            if (ids[i] == null) ids[i] = new UUID(0, 0);
+        }
+        int[] titleRefs = new int[n];
+        int[] descriptionRefs = new int[n];
+        int[] locationRefs = new int[n];
+        for (int i = 0; i < n; i++) {
+            titleRefs[i] = heap.add(rows[i].title);
+            descriptionRefs[i] = heap.add(rows[i].description);
+            locationRefs[i] = heap.add(rows[i].location);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+
+            out.writeShort(types.size());
+            for (String type : types) {
+                byte[] bytes = type.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+
+            for (int i = 0; i < n; i++) out.writeLong(ids[i].getMostSignificantBits());
+            for (int i = 0; i < n; i++) out.writeLong(ids[i].getLeastSignificantBits());
+            for (int ref : idRefs) out.writeInt(ref);
+            for (Event e : rows) out.writeInt(toMinutes(e.date));
+            for (Event e : rows) out.writeInt(toMinutes(e.startTime));
+            for (Event e : rows) out.writeInt(toMinutes(e.endTime));
+            for (Event e : rows) out.writeByte(e.type == null ? NO_TYPE : typeCodes.get(e.type));
+            for (int ref : titleRefs) out.writeInt(ref);
+            for (int ref : descriptionRefs) out.writeInt(ref);
+            for (int ref : locationRefs) out.writeInt(ref);
+
+            out.writeInt(heap.size());
+            heap.writeTo(out);
+        }
+    }
+
+    @Override
+    public List<Event> read(File file) throws IOException {
+        Mapped mapped = map(file);
+        ArrayList<Event> events = new ArrayList<>(mapped.rowCount);
+        for (int i = 0; i < mapped.rowCount; i++) {
+            events.add(mapped.decode(i));
+        }
+        return events;
+    }
+
+    @Override
+    public List<Event> readRange(File file, long fromMillis, long toMillis) throws IOException {
+        Mapped mapped = map(file);
+        int first = mapped.lowerBound(ceilMinutes(fromMillis));
+        int end = mapped.lowerBound(ceilMinutes(toMillis));
+        ArrayList<Event> events = new ArrayList<>(Math.max(0, end - first));
+        for (int i = first; i < end; i++) {
+            events.add(mapped.decode(i));
+        }
+        return events;
+    }
+
+    private static Mapped map(File file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < 14 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an event snapshot: " + file.getName());
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION && version != VERSION_WITHOUT_ID_REF) {
+            throw new IOException("Unsupported event snapshot version " + version);
+        }
+        return new Mapped(buffer, version != VERSION_WITHOUT_ID_REF);
+    }
+
+    private static int toMinutes(Date date) {
+        return date == null ? NULL_MINUTES : (int) Math.floorDiv(date.getTime(), MILLIS_PER_MINUTE);
+    }
+
+    private static int ceilMinutes(long millis) {
+        return (int) -Math.floorDiv(-millis, MILLIS_PER_MINUTE);
+    }
+
+    /**
+     * @return the id as a UUID, the nil UUID for a null id, or null if the id is not a
+     *         UUID in canonical form and has to be stored as a string
+     */
+    private static UUID toUuid(String id) {
+        if (id == null) return new UUID(0, 0);
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Column offsets into a mapped snapshot, and row decoding.
+     */
+    private static final class Mapped {
+        final ByteBuffer buffer;
+        final int rowCount;
+        final String[] types;
+        final int idMsbColumn, idLsbColumn, idRefColumn, dateColumn, startColumn, endColumn;
+        final int typeColumn, titleColumn, descriptionColumn, locationColumn;
+        final int heapStart;
+
+        /**
+         * @param hasIdRefs false for version 1 files, which have no idRef column
+         */
+        Mapped(ByteBuffer buffer, boolean hasIdRefs) {
+            this.buffer = buffer;
+            rowCount = buffer.getInt(8);
+
+            int pos = 12;
+            int typeCount = buffer.getShort(pos) & 0xFFFF;
+            pos += 2;
+            types = new String[typeCount];
+            for (int i = 0; i < typeCount; i++) {
+                int length = buffer.getShort(pos) & 0xFFFF;
+                types[i] = decodeString(pos + 2, length);
+                pos += 2 + length;
+            }
+
+            int n = rowCount;
+            idMsbColumn = pos;
+            idLsbColumn = idMsbColumn + 8 * n;
+            idRefColumn = hasIdRefs ? idLsbColumn + 8 * n : -1;
+            dateColumn = idLsbColumn + 8 * n + (hasIdRefs ? 4 * n : 0);
+            startColumn = dateColumn + 4 * n;
+            endColumn = startColumn + 4 * n;
+            typeColumn = endColumn + 4 * n;
+            titleColumn = typeColumn + n;
+            descriptionColumn = titleColumn + 4 * n;
+            locationColumn = descriptionColumn + 4 * n;
+            heapStart = locationColumn + 4 * n + 4;
+        }
+
+        /**
+         * @return the first row whose date is at or after the given minute
+         */
+        int lowerBound(int minutes) {
+            int lo = 0, hi = rowCount;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (buffer.getInt(dateColumn + 4 * mid) < minutes) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        Event decode(int row) {
+            Event event = new Event();
+            int idRef = idRefColumn < 0 ? NO_REF : buffer.getInt(idRefColumn + 4 * row);
+            event.id = idRef != NO_REF ? heapString(idRef) : new UUID(buffer.getLong(idMsbColumn + 8 * row),
+                    buffer.getLong(idLsbColumn + 8 * row)).toString();
+            event.date = toDate(buffer.getInt(dateColumn + 4 * row));
+            event.startTime = toDate(buffer.getInt(startColumn + 4 * row));
+            event.endTime = toDate(buffer.getInt(endColumn + 4 * row));
+            int typeCode = buffer.get(typeColumn + row) & 0xFF;
+            event.type = typeCode == NO_TYPE ? null : types[typeCode];
+            event.title = heapString(buffer.getInt(titleColumn + 4 * row));
+            event.description = heapString(buffer.getInt(descriptionColumn + 4 * row));
+            event.location = heapString(buffer.getInt(locationColumn + 4 * row));
+            return event;
+        }
+
+        private String heapString(int ref) {
+            if (ref == NO_REF) return null;
+            int pos = heapStart + ref;
+            return decodeString(pos + 4, buffer.getInt(pos));
+        }
+
+        private String decodeString(int pos, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(pos);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static Date toDate(int minutes) {
+            return minutes == NULL_MINUTES ? null : new Date(minutes * MILLIS_PER_MINUTE);
+        }
+    }
+
+    /**
+     * Deduplicating string heap built while writing.
+     */
+    private static final class StringHeap {
+        private final HashMap<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        int add(String value) throws IOException {
+            if (value == null) return NO_REF;
+            Integer existing = offsets.get(value);
+            if (existing != null) return existing;
+
+            int offset = bytes.size();
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+            offsets.put(value, offset);
+            return offset;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            bytes.writeTo(target);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.timecast.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Schema for {@link SqliteEventRepository}.
+ *
+ * Times are stored as epoch millis. epoch_day is the local day of the event's date and
+ * backs the day, week and month range queries; (start_ms, id) backs the agenda's
+ * keyset paging.
+ */
+class EventDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "events.db";
+    private static final int DATABASE_VERSION = 2;
+
+    static final String TABLE = "events";
+    static final String COL_ID = "id";
+    static final String COL_TITLE = "title";
+    static final String COL_DESCRIPTION = "description";
+    static final String COL_DATE = "date_ms";
+    static final String COL_START = "start_ms";
+    static final String COL_END = "end_ms";
+    static final String COL_EPOCH_DAY = "epoch_day";
+    static final String COL_TYPE = "type";
+    static final String COL_LOCATION = "location";
+
+    /** Column order shared by every SELECT and the INSERT statement. */
+    static final String COLUMNS = COL_ID + ", " + COL_TITLE + ", " + COL_DESCRIPTION + ", "
+            + COL_DATE + ", " + COL_START + ", " + COL_END + ", " + COL_EPOCH_DAY + ", "
+            + COL_TYPE + ", " + COL_LOCATION;
+
+    EventDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COL_ID + " TEXT PRIMARY KEY NOT NULL, "
+                + COL_TITLE + " TEXT, "
+                + COL_DESCRIPTION + " TEXT, "
+                + COL_DATE + " INTEGER, "
+                + COL_START + " INTEGER, "
+                + COL_END + " INTEGER, "
+                + COL_EPOCH_DAY + " INTEGER, "
+                + COL_TYPE + " TEXT, "
+                + COL_LOCATION + " TEXT)");
+        createStartIndex(db);
+        db.execSQL("CREATE INDEX idx_events_day ON " + TABLE + " (" + COL_EPOCH_DAY + ")");
+        db.execSQL("CREATE INDEX idx_events_type ON " + TABLE + " (" + COL_TYPE + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            db.execSQL("DROP INDEX IF EXISTS idx_events_start");
+            createStartIndex(db);
+        }
+    }
+
+    /**
+     * Covers the start-time range queries and the (start, id) keyset order, so pages
+     * come straight off the index without a sort.
+     */
+    private static void createStartIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX idx_events_start_id ON " + TABLE + " (" + COL_START + ", " + COL_ID + ")");
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The single preconfigured {@link Gson} used for event storage. Gson instances are
+ * thread-safe, so one is shared instead of building a new one per call site.
+ */
+public final class EventGson {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Event.class, new EventTypeAdapter())
+            .create();
+
+    private EventGson() {
+    }
+
+    public static Gson get() {
+        return GSON;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Buckets events by the epoch day of {@link Event#date} so day, week and month lookups
+ * only touch the buckets in range instead of scanning every event.
+ *
+ * The day each event was filed under is remembered by id, so an event whose date was
+ * changed in place can still be removed from its old bucket.
+ */
+class EventIndex {
+    /** Keyset order of {@link EventRepository#eventsAfter}; events need a start time. */
+    static final Comparator<Event> BY_START = (a, b) -> {
+        int byTime = Long.compare(a.startTime.getTime(), b.startTime.getTime());
+        return byTime != 0 ? byTime : a.id.compareTo(b.id);
+    };
+
+    private final TreeMap<Long, ArrayList<Event>> byDay = new TreeMap<>();
+    private final HashMap<String, Long> dayOfId = new HashMap<>();
+
+    static long epochDay(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Compares an event with a keyset position in {@link #BY_START} order.
+     */
+    static int compareToKey(Event event, long startMillis, String id) {
+        int byTime = Long.compare(event.startTime.getTime(), startMillis);
+        return byTime != 0 ? byTime : event.id.compareTo(id);
+    }
+
+    void add(Event event) {
+        if (event.date == null) return;
+        long day = epochDay(event.date);
+        ArrayList<Event> bucket = byDay.get(day);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            byDay.put(day, bucket);
+        }
+        bucket.add(event);
+        dayOfId.put(event.id, day);
+    }
+
+    void remove(String id) {
+        Long day = dayOfId.remove(id);
+        if (day == null) return;
+        ArrayList<Event> bucket = byDay.get(day);
+        if (bucket == null) return;
+        for (int i = 0; i < bucket.size(); i++) {
+            if (id.equals(bucket.get(i).id)) {
+                bucket.remove(i);
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            byDay.remove(day);
+        }
+    }
+
+    List<Event> eventsOn(long epochDay) {
+        ArrayList<Event> bucket = byDay.get(epochDay);
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+
+    /**
+     * @return events whose day falls in [fromEpochDay, toEpochDay)
+     */
+    List<Event> eventsBetween(long fromEpochDay, long toEpochDay) {
+        ArrayList<Event> result = new ArrayList<>();
+        if (toEpochDay <= fromEpochDay) return result;
+        for (Map.Entry<Long, ArrayList<Event>> entry : byDay.subMap(fromEpochDay, toEpochDay).entrySet()) {
+            result.addAll(entry.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,507 @@
+package com.example.timecast.data;
+
+import android.util.Log;
+
+import com.example.timecast.Event;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * File-backed event storage: one snapshot shard per month plus an append-only journal.
+ *
+ * Shards live in an "events" directory as "yyyy-MM" files, so a view only reads the
+ * months it shows. Every add, update or delete appends one small JSON line to the
+ * journal instead of rewriting a shard. A record names the month it puts the event in
+ * and the month it came from, so moving an event to another month is a single record
+ * and is atomic.
+ *
+ * Once the journal grows past {@link #COMPACT_THRESHOLD_BYTES} it is rotated and a
+ * background thread folds it into the shards it touches. Replaying a record is
+ * idempotent, so a crash at any point during compaction leaves a state that replays to
+ * the same events, and a compaction that fails is simply retried on the next trigger.
+ * Records still in the journal at startup are kept as an overlay and applied whenever
+ * their month is loaded.
+ *
+ * An append that fails throws {@link UncheckedIOException}. Its records are kept and
+ * written ahead of the next append, so a caller that retries does not lose a delete
+ * that its own memory has already applied.
+ *
+ * Shards are written in the given {@link SnapshotFormat}. A shard left behind in one of
+ * the fallback formats is still read, and is replaced the next time it is compacted.
+ */
+class EventJournal {
+    private static final String TAG = "EventJournal";
+
+    private static final String SHARD_DIR = "events";
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String ROTATED_JOURNAL_FILE = "journal.log.old";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /** Single-file layout written before storage was sharded by month. */
+    private static final String[] FLAT_SNAPSHOT_FILES = {"events.snapshot", "events.bin"};
+    private static final String[] FLAT_JOURNAL_FILES = {"events.journal.old", "events.journal"};
+
+    private static final long COMPACT_THRESHOLD_BYTES = 64 * 1024;
+
+    private static final String OP_PUT = "put";
+    private static final String OP_DELETE = "delete";
+
+    private final File rootDir;
+    private final File shardDir;
+    private final File journalFile;
+    private final File rotatedJournalFile;
+    private final Gson gson;
+    private final SnapshotFormat format;
+    private final SnapshotFormat[] fallbackFormats;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor();
+
+    /** Latest journal record per event id found at startup, in journal order. */
+    private final LinkedHashMap<String, Record> overlay = new LinkedHashMap<>();
+    private boolean compacting = false;
+    /** Records held back until {@link #commitBatch()}; null when no batch is open. */
+    private ArrayList<Record> batch;
+    /** Records of failed appends, written before anything appended after them. */
+    private final ArrayList<Record> unwritten = new ArrayList<>();
+
+    EventJournal(File rootDir, Gson gson, SnapshotFormat format, SnapshotFormat... fallbackFormats) {
+        this.rootDir = rootDir;
+        this.shardDir = new File(rootDir, SHARD_DIR);
+        this.journalFile = new File(shardDir, JOURNAL_FILE);
+        this.rotatedJournalFile = new File(shardDir, ROTATED_JOURNAL_FILE);
+        this.gson = gson;
+        this.format = format;
+        this.fallbackFormats = fallbackFormats;
+    }
+
+    static YearMonth monthOf(Event event) {
+        Date date = event.date != null ? event.date : event.startTime;
+        if (date == null) return YearMonth.of(1970, 1);
+        return YearMonth.from(date.toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Prepares the journal for use: converts the old single-file layout if present,
+     * reads any journal tail into the overlay and resumes an interrupted compaction.
+     */
+    synchronized void open() {
+        if (!shardDir.exists() && !shardDir.mkdirs()) {
+            Log.e(TAG, "Could not create " + shardDir);
+        }
+        migrateFlatLayout();
+
+        addToOverlay(readJournal(rotatedJournalFile));
+        addToOverlay(readJournal(journalFile));
+
+        if (rotatedJournalFile.exists()) {
+            compacting = true;
+            compactor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Stops the compactor thread once any compaction already under way has finished.
+     * For journals opened only to be read, such as during an import.
+     */
+    void close() {
+        compactor.shutdown();
+    }
+
+    /**
+     * @return true if no shard and no journal has ever been written
+     */
+    synchronized boolean isEmpty() {
+        return storedMonths().isEmpty() && !journalFile.exists() && !rotatedJournalFile.exists();
+    }
+
+    /**
+     * @return every month that has a shard on disk or a pending journal record
+     */
+    synchronized TreeSet<YearMonth> storedMonths() {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        String[] names = shardDir.list();
+        if (names != null) {
+            for (String name : names) {
+                YearMonth month = parseShardName(name);
+                if (month != null) months.add(month);
+            }
+        }
+        for (Record record : overlay.values()) {
+            if (OP_PUT.equals(record.op) && record.month != null) {
+                months.add(YearMonth.parse(record.month));
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Reads one month's shard with the startup overlay applied.
+     */
+    synchronized List<Event> loadMonth(YearMonth month) {
+        LinkedHashMap<String, Event> events = new LinkedHashMap<>();
+        readShard(month, events);
+
+        String key = month.toString();
+        for (Map.Entry<String, Record> entry : overlay.entrySet()) {
+            Record record = entry.getValue();
+            if (OP_PUT.equals(record.op) && key.equals(record.month)) {
+                events.put(entry.getKey(), record.event);
+            } else {
+                events.remove(entry.getKey());
+            }
+        }
+        return new ArrayList<>(events.values());
+    }
+
+    /**
+     * Reads the events of one month dated in [fromMillis, toMillis), with the startup
+     * overlay applied, decoding only those rows of the shard.
+     *
+     * @return the events, or null if the shard's format can only be read whole, in
+     *         which case the caller should load the month
+     */
+    synchronized List<Event> loadRange(YearMonth month, long fromMillis, long toMillis) {
+        LinkedHashMap<String, Event> events = new LinkedHashMap<>();
+        File file = shardFile(month, format);
+        SnapshotFormat reader = format;
+        for (int i = 0; !file.exists() && i < fallbackFormats.length; i++) {
+            reader = fallbackFormats[i];
+            file = shardFile(month, reader);
+        }
+        if (file.exists()) {
+            try {
+                List<Event> rows = reader.readRange(file, fromMillis, toMillis);
+                if (rows == null) return null;
+                for (Event e : rows) {
+                    if (e != null && e.id != null) {
+                        events.put(e.id, e);
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to read snapshot " + file.getName(), e);
+            }
+        }
+
+        String key = month.toString();
+        for (Map.Entry<String, Record> entry : overlay.entrySet()) {
+            Record record = entry.getValue();
+            Event event = record.event;
+            if (OP_PUT.equals(record.op) && key.equals(record.month) && event != null && event.date != null
+                    && event.date.getTime() >= fromMillis && event.date.getTime() < toMillis) {
+                events.put(entry.getKey(), event);
+            } else {
+                events.remove(entry.getKey());
+            }
+        }
+        return new ArrayList<>(events.values());
+    }
+
+    /**
+     * @param from month the event was stored under before this write, or null if new
+     */
+    synchronized void appendPut(Event event, YearMonth from, YearMonth to) {
+        append(new Record(OP_PUT, event.id, event, from, to));
+    }
+
+    synchronized void appendDelete(String id, YearMonth from) {
+        append(new Record(OP_DELETE, id, null, from, null));
+    }
+
+    /**
+     * Holds back appended records until {@link #commitBatch()}, which writes them all
+     * with a single open of the journal file.
+     */
+    synchronized void beginBatch() {
+        if (batch == null) {
+            batch = new ArrayList<>();
+        }
+    }
+
+    synchronized void commitBatch() {
+        List<Record> records = batch;
+        batch = null;
+        if (records != null && (!records.isEmpty() || !unwritten.isEmpty())) {
+            write(records);
+        }
+    }
+
+    /**
+     * Writes the given events straight into month shards and clears the journal.
+     * Used for one-time imports into empty storage.
+     */
+    synchronized void writeAll(Collection<Event> events) throws IOException {
+        HashMap<YearMonth, ArrayList<Event>> byMonth = new HashMap<>();
+        for (Event e : events) {
+            YearMonth month = monthOf(e);
+            ArrayList<Event> shard = byMonth.get(month);
+            if (shard == null) {
+                shard = new ArrayList<>();
+                byMonth.put(month, shard);
+            }
+            shard.add(e);
+        }
+        for (Map.Entry<YearMonth, ArrayList<Event>> entry : byMonth.entrySet()) {
+            writeShard(entry.getKey(), entry.getValue());
+        }
+        journalFile.delete();
+        rotatedJournalFile.delete();
+        overlay.clear();
+    }
+
+    private void append(Record record) {
+        if (batch != null) {
+            batch.add(record);
+        } else {
+            write(Collections.singletonList(record));
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the journal could not be written; the records are
+     *                              kept for the next write
+     */
+    private void write(List<Record> records) {
+        unwritten.addAll(records);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journalFile, true), StandardCharsets.UTF_8))) {
+            for (Record record : unwritten) {
+                writer.write(gson.toJson(record));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            // Lines that did get written are replayed twice, which is harmless.
+            throw new UncheckedIOException("Failed to append " + unwritten.size() + " journal records", e);
+        }
+        unwritten.clear();
+
+        if (journalFile.length() > COMPACT_THRESHOLD_BYTES) {
+            scheduleCompaction();
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compacting) return;
+        // A rotated journal left by a failed compaction is folded first; the current
+        // journal is rotated by a later trigger once that one is gone.
+        if (!rotatedJournalFile.exists() && !journalFile.renameTo(rotatedJournalFile)) {
+            Log.w(TAG, "Could not rotate journal, compaction skipped");
+            return;
+        }
+        compacting = true;
+        compactor.execute(this::compact);
+    }
+
+    /**
+     * Folds the rotated journal into the shards it touches. Runs on the compactor thread
+     * while new records keep going to the fresh journal file, which this never touches.
+     */
+    private void compact() {
+        try {
+            List<Record> records = readJournal(rotatedJournalFile);
+
+            TreeSet<YearMonth> touched = new TreeSet<>();
+            for (Record record : records) {
+                if (record.from != null) touched.add(YearMonth.parse(record.from));
+                if (record.month != null) touched.add(YearMonth.parse(record.month));
+            }
+
+            for (YearMonth month : touched) {
+                LinkedHashMap<String, Event> events = new LinkedHashMap<>();
+                readShard(month, events);
+                String key = month.toString();
+                for (Record record : records) {
+                    if (OP_PUT.equals(record.op) && key.equals(record.month)) {
+                        events.put(record.id, record.event);
+                    } else if (key.equals(record.from) || key.equals(record.month)) {
+                        events.remove(record.id);
+                    }
+                }
+                writeShard(month, events.values());
+            }
+            rotatedJournalFile.delete();
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Journal compaction failed, will retry", e);
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    private void writeShard(YearMonth month, Collection<Event> events) throws IOException {
+        File shard = shardFile(month, format);
+        if (events.isEmpty()) {
+            shard.delete();
+        } else {
+            File tmp = new File(shardDir, shard.getName() + TMP_SUFFIX);
+            format.write(tmp, events);
+            if (!tmp.renameTo(shard)) {
+                throw new IOException("Could not replace " + shard);
+            }
+        }
+        for (SnapshotFormat fallback : fallbackFormats) {
+            shardFile(month, fallback).delete();
+        }
+    }
+
+    private void readShard(YearMonth month, Map<String, Event> into) {
+        File file = shardFile(month, format);
+        SnapshotFormat reader = format;
+        for (int i = 0; !file.exists() && i < fallbackFormats.length; i++) {
+            reader = fallbackFormats[i];
+            file = shardFile(month, reader);
+        }
+        readSnapshot(file, reader, into);
+    }
+
+    private void readSnapshot(File file, SnapshotFormat reader, Map<String, Event> into) {
+        if (!file.exists()) return;
+        try {
+            for (Event e : reader.read(file)) {
+                if (e != null && e.id != null) {
+                    into.put(e.id, e);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read snapshot " + file.getName(), e);
+        }
+    }
+
+    private File shardFile(YearMonth month, SnapshotFormat shardFormat) {
+        return new File(shardDir, month + shardFormat.extension());
+    }
+
+    private static YearMonth parseShardName(String name) {
+        int dot = name.indexOf('.');
+        if (dot != 7 || name.endsWith(TMP_SUFFIX)) return null;
+        try {
+            return YearMonth.parse(name.substring(0, dot));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits a snapshot and journal written by the single-file layout into month
+     * shards, then removes the old files.
+     */
+    private void migrateFlatLayout() {
+        LinkedHashMap<String, Event> events = new LinkedHashMap<>();
+        boolean found = false;
+
+        SnapshotFormat[] formats = {new JsonSnapshotFormat(gson), new BinaryEventFile()};
+        for (int i = 0; i < FLAT_SNAPSHOT_FILES.length && !found; i++) {
+            File file = new File(rootDir, FLAT_SNAPSHOT_FILES[i]);
+            if (file.exists()) {
+                readSnapshot(file, formats[i], events);
+                found = true;
+            }
+        }
+        for (String name : FLAT_JOURNAL_FILES) {
+            File file = new File(rootDir, name);
+            if (!file.exists()) continue;
+            found = true;
+            for (Record record : readJournal(file)) {
+                if (OP_PUT.equals(record.op)) {
+                    events.put(record.id, record.event);
+                } else {
+                    events.remove(record.id);
+                }
+            }
+        }
+        if (!found) return;
+
+        try {
+            writeAll(events.values());
+            for (String name : FLAT_SNAPSHOT_FILES) new File(rootDir, name).delete();
+            for (String name : FLAT_JOURNAL_FILES) new File(rootDir, name).delete();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not split event snapshot into month shards", e);
+        }
+    }
+
+    private void addToOverlay(List<Record> records) {
+        for (Record record : records) {
+            // Re-insert so the overlay stays in order of each id's latest record.
+            overlay.remove(record.id);
+            overlay.put(record.id, record);
+        }
+    }
+
+    private List<Record> readJournal(File file) {
+        ArrayList<Record> records = new ArrayList<>();
+        if (!file.exists()) return records;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Record record;
+                try {
+                    record = gson.fromJson(line, Record.class);
+                } catch (JsonParseException e) {
+                    // A torn final line from an interrupted write; everything before it is intact.
+                    Log.w(TAG, "Skipping unreadable journal record");
+                    continue;
+                }
+                if (record == null || record.id == null) continue;
+                if (OP_PUT.equals(record.op)) {
+                    if (record.event == null) continue;
+                    if (record.month == null) {
+                        record.month = monthOf(record.event).toString();
+                    }
+                } else if (!OP_DELETE.equals(record.op)) {
+                    continue;
+                }
+                records.add(record);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read journal " + file.getName(), e);
+        }
+        return records;
+    }
+
+    private static class Record {
+        String op;
+        String id;
+        Event event;
+        /** Month the event was stored under before this record; null for new events. */
+        String from;
+        /** Month a put stores the event under. */
+        String month;
+
+        Record(String op, String id, Event event, YearMonth from, YearMonth month) {
+            this.op = op;
+            this.id = id;
+            this.event = event;
+            this.from = from == null ? null : from.toString();
+            this.month = month == null ? null : month.toString();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.timecast.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs event queries on a background thread and delivers results on the UI thread.
+ *
+ * Each screen owns one loader. Starting a new load cancels the previous one: a request
+ * still queued never runs, and a request already running has its result dropped
+ * instead of delivered. Rapid day, week or month navigation therefore only renders the
+ * range the user ended up on. Opening the repository (and with it any storage
+ * migration) also happens on the background thread.
+ *
+ * All loaders share one worker thread, so queries never contend with each other for
+ * the repository lock.
+ */
+public class EventLoader {
+    private static final String TAG = "EventLoader";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-loader");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Context appContext;
+    private Future<?> pending;
+    private int generation;
+
+    public EventLoader(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Runs {@code query} in the background, cancelling any earlier load from this loader.
+     * Must be called on the UI thread; {@code callback} is invoked there too.
+     */
+    public <T> void load(Query<T> query, Callback<T> callback) {
+        cancel();
+        final int requestGeneration = generation;
+        pending = executor.submit(() -> {
+            T result;
+            try {
+                result = query.load(EventRepository.getInstance(appContext));
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Event query failed", e);
+                return;
+            }
+            mainHandler.post(() -> {
+                if (requestGeneration == generation) {
+                    pending = null;
+                    callback.onLoaded(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * Hands buffered writes to storage. Goes through the loader thread like any query,
+     * so a screen paused before its first load does not open the store on the UI thread.
+     */
+    public static void flush(Context context) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> EventRepository.getInstance(appContext).flush());
+    }
+
+    /**
+     * Drops the current load, if any. Call from onDestroy/onDestroyView so results are
+     * not delivered to a screen that is gone.
+     */
+    public void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    public interface Query<T> {
+        /** Runs on the background thread. */
+        T load(EventRepository repository);
+    }
+
+    public interface Callback<T> {
+        /** Runs on the UI thread, only if the load was not cancelled. */
+        void onLoaded(T result);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.timecast.data;
+
+import android.content.Context;
+
+import com.example.timecast.Event;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Access to saved events for activities and fragments.
+ *
+ * {@link #getInstance} returns an {@link EventWriteBuffer} in front of the storage
+ * backend. The file-backed {@link EventStore} is used by default. Setting the
+ * "sqlite_event_storage" preference switches to {@link SqliteEventRepository} from the
+ * next launch.
+ */
+public interface EventRepository {
+    String PREFS_NAME = "TimeCastPrefs";
+    String SQLITE_STORAGE_PREF_KEY = "sqlite_event_storage";
+
+    /**
+     * Opens the storage on first use, which may read the journal or create the
+     * database and migrate old data. Screens reach the repository through
+     * {@link EventLoader} so this never runs on the UI thread.
+     */
+    static EventRepository getInstance(Context context) {
+        return EventWriteBuffer.getInstance(context);
+    }
+
+    Event findById(String id);
+
+    List<Event> eventsOn(LocalDate day);
+
+    /**
+     * @return events dated in [from, toExclusive)
+     */
+    List<Event> eventsBetween(LocalDate from, LocalDate toExclusive);
+
+    List<Event> eventsIn(YearMonth month);
+
+    /**
+     * Finds stored events whose time range overlaps [start, end).
+     *
+     * @param ignoreId id of an event to leave out, such as the one being moved; may be null
+     */
+    List<Event> findConflicts(Date start, Date end, String ignoreId);
+
+    /**
+     * One page of a keyset scan over events that have a start time, ordered by start
+     * time and then id. Pass the last event of the previous page as the key to get the
+     * next one; an empty id puts the key before every event starting at
+     * {@code startMillis}.
+     *
+     * @return up to {@code limit} events after the key
+     */
+    List<Event> eventsAfter(long startMillis, String id, int limit);
+
+    /**
+     * The page just before the key, in the same ascending order; an empty id puts the
+     * key before every event starting at {@code startMillis}.
+     *
+     * @return up to {@code limit} events before the key
+     */
+    List<Event> eventsBefore(long startMillis, String id, int limit);
+
+    void add(Event event);
+
+    /**
+     * Replaces the stored event with the same id, or adds it if none exists.
+     */
+    void save(Event event);
+
+    /**
+     * @return true if an event with this id existed and was removed
+     */
+    boolean delete(String id);
+
+    /**
+     * Saves and deletes several events as one unit of work.
+     */
+    void applyBatch(Collection<Event> saved, Collection<String> deletedIds);
+
+    /**
+     * Starts writing any buffered changes to storage. Call from onPause/onStop.
+     * Repositories that write through immediately have nothing to do.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.timecast.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.timecast.Event;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Process-wide, in-memory cache of saved events.
+ *
+ * Storage is sharded by month, and a month is read from disk the first time a query
+ * touches it; after that it is served from memory. Since all writes go through this
+ * class a loaded month never has to be re-read. Writes append a single record to an
+ * {@link EventJournal} rather than rewriting a shard, and keep an {@link EventIndex}
+ * by day current so calendar views can ask for a day, week or month without scanning
+ * everything. Conflict checks go through an {@link IntervalIndex} over the loaded
+ * months that is rebuilt lazily after writes. The keyset queries behind the agenda are
+ * the exception: they read months not loaded yet straight from the journal without
+ * keeping them, so paging through years of history does not load all of it. A day
+ * query on a month not loaded yet likewise decodes only that day's rows when the shard
+ * is a {@link BinaryEventFile}. Only the
+ * month of each id seen is remembered, and a later write or delete of such an event
+ * loads that month first, so the record replaces the stored copy.
+ *
+ * Shards are JSON by default. Setting the "binary_event_storage" preference
+ * switches it to the memory-mapped {@link BinaryEventFile} from the next launch.
+ */
+public class EventStore implements EventRepository {
+    private static final String TAG = "EventStore";
+    private static final String LEGACY_PREF_KEY = "event_data";
+    private static final String BINARY_STORAGE_PREF_KEY = "binary_event_storage";
+
+    private static EventStore instance;
+
+    private final Gson gson = EventGson.get();
+    private final EventJournal journal;
+    private final LinkedHashMap<String, Event> events = new LinkedHashMap<>();
+    private final HashMap<String, YearMonth> monthOfId = new HashMap<>();
+    private final HashSet<YearMonth> loadedMonths = new HashSet<>();
+    private final EventIndex dayIndex = new EventIndex();
+    private IntervalIndex intervalIndex;
+
+    private EventStore(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        SnapshotFormat json = new JsonSnapshotFormat(gson);
+        SnapshotFormat binary = new BinaryEventFile();
+        journal = prefs.getBoolean(BINARY_STORAGE_PREF_KEY, false)
+                ? new EventJournal(context.getFilesDir(), gson, binary, json)
+                : new EventJournal(context.getFilesDir(), gson, json, binary);
+        journal.open();
+        migrateLegacyBlob(prefs);
+    }
+
+    public static synchronized EventStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new EventStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a snapshot of all events, loading every month. The list may be modified
+     * freely by the caller.
+     */
+    public synchronized ArrayList<Event> getAll() {
+        for (YearMonth month : journal.storedMonths()) {
+            ensureLoaded(month);
+        }
+        return new ArrayList<>(events.values());
+    }
+
+    /**
+     * Looks an event up among the months loaded so far, or in the month a paging query
+     * last saw it in.
+     */
+    @Override
+    public synchronized Event findById(String id) {
+        if (id == null) return null;
+        loadMonthOf(id);
+        return events.get(id);
+    }
+
+    /**
+     * For a month not loaded yet, reads only the day's rows if the shard format allows
+     * it, so opening the app on today does not decode the whole month.
+     */
+    @Override
+    public synchronized List<Event> eventsOn(LocalDate day) {
+        YearMonth month = YearMonth.from(day);
+        if (!loadedMonths.contains(month)) {
+            ZoneId zone = ZoneId.systemDefault();
+            List<Event> stored = journal.loadRange(month, day.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            if (stored != null) {
+                return notInMemory(stored, month);
+            }
+        }
+        ensureLoaded(month);
+        return dayIndex.eventsOn(day.toEpochDay());
+    }
+
+    /**
+     * @return events dated in [from, toExclusive)
+     */
+    @Override
+    public synchronized List<Event> eventsBetween(LocalDate from, LocalDate toExclusive) {
+        ensureLoaded(from, toExclusive);
+        return dayIndex.eventsBetween(from.toEpochDay(), toExclusive.toEpochDay());
+    }
+
+    @Override
+    public synchronized List<Event> eventsIn(YearMonth month) {
+        return eventsBetween(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * Finds stored events whose time range overlaps [start, end).
+     *
+     * @param ignoreId id of an event to leave out, such as the one being moved; may be null
+     */
+    @Override
+    public synchronized List<Event> findConflicts(Date start, Date end, String ignoreId) {
+        // An event dated the day before can still run into this range.
+        LocalDate firstDay = LocalDate.ofEpochDay(EventIndex.epochDay(start) - 1);
+        LocalDate lastDay = LocalDate.ofEpochDay(EventIndex.epochDay(end));
+        ensureLoaded(firstDay, lastDay.plusDays(1));
+
+        if (intervalIndex == null) {
+            intervalIndex = new IntervalIndex(events.values());
+        }
+        return intervalIndex.findOverlaps(start.getTime(), end.getTime(), ignoreId);
+    }
+
+    /**
+     * Walks the stored months forward from the key's month until a full page is
+     * collected. Months are by event date, which is the start time's day.
+     */
+    @Override
+    public synchronized List<Event> eventsAfter(long startMillis, String id, int limit) {
+        ArrayList<Event> page = new ArrayList<>();
+        YearMonth keyMonth = YearMonth.from(Instant.ofEpochMilli(startMillis).atZone(ZoneId.systemDefault()));
+        for (YearMonth month : journal.storedMonths().tailSet(keyMonth, true)) {
+            for (Event event : monthEvents(month)) {
+                if (event.startTime != null && EventIndex.compareToKey(event, startMillis, id) > 0) {
+                    page.add(event);
+                }
+            }
+            if (page.size() >= limit) break;
+        }
+        page.sort(EventIndex.BY_START);
+        return page.size() > limit ? new ArrayList<>(page.subList(0, limit)) : page;
+    }
+
+    @Override
+    public synchronized List<Event> eventsBefore(long startMillis, String id, int limit) {
+        ArrayList<Event> page = new ArrayList<>();
+        YearMonth keyMonth = YearMonth.from(Instant.ofEpochMilli(startMillis).atZone(ZoneId.systemDefault()));
+        for (YearMonth month : journal.storedMonths().headSet(keyMonth, true).descendingSet()) {
+            for (Event event : monthEvents(month)) {
+                if (event.startTime != null && EventIndex.compareToKey(event, startMillis, id) < 0) {
+                    page.add(event);
+                }
+            }
+            if (page.size() >= limit) break;
+        }
+        page.sort(EventIndex.BY_START);
+        return page.size() > limit ? new ArrayList<>(page.subList(page.size() - limit, page.size())) : page;
+    }
+
+    /**
+     * Events dated in a month, from memory if it is loaded and otherwise read from the
+     * journal for this call only.
+     */
+    private List<Event> monthEvents(YearMonth month) {
+        if (loadedMonths.contains(month)) {
+            return dayIndex.eventsBetween(month.atDay(1).toEpochDay(), month.plusMonths(1).atDay(1).toEpochDay());
+        }
+        return notInMemory(journal.loadMonth(month), month);
+    }
+
+    /**
+     * Filters events read from an unloaded month's shard without loading the month.
+     */
+    private List<Event> notInMemory(List<Event> stored, YearMonth month) {
+        ArrayList<Event> result = new ArrayList<>(stored.size());
+        for (Event e : stored) {
+            // As in ensureLoaded, an id in memory was written this session and is newer.
+            if (!events.containsKey(e.id)) {
+                result.add(e);
+                // Only the month is kept, so a later write can load it and replace
+                // the stored copy instead of leaving it behind in its shard.
+                monthOfId.put(e.id, month);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void add(Event event) {
+        if (event.id == null) {
+            event.id = UUID.randomUUID().toString();
+        }
+        put(event);
+    }
+
+    /**
+     * Replaces the stored event with the same id, or adds it if none exists.
+     */
+    @Override
+    public synchronized void save(Event event) {
+        add(event);
+    }
+
+    /**
+     * @return true if an event with this id existed and was removed
+     */
+    @Override
+    public synchronized boolean delete(String id) {
+        if (id == null) return false;
+        loadMonthOf(id);
+        if (events.remove(id) == null) return false;
+        YearMonth from = monthOfId.remove(id);
+        dayIndex.remove(id);
+        intervalIndex = null;
+        journal.appendDelete(id, from);
+        return true;
+    }
+
+    /**
+     * Applies the writes in memory right away and appends them to the journal in one go.
+     */
+    @Override
+    public synchronized void applyBatch(Collection<Event> saved, Collection<String> deletedIds) {
+        journal.beginBatch();
+        try {
+            for (Event event : saved) {
+                add(event);
+            }
+            for (String id : deletedIds) {
+                delete(id);
+            }
+        } finally {
+            journal.commitBatch();
+        }
+    }
+
+    private void put(Event event) {
+        YearMonth to = EventJournal.monthOf(event);
+        // Load the target month first so the event does not end up in a partial shard,
+        // and the month of any stored copy so the record names it as the one to leave.
+        ensureLoaded(to);
+        loadMonthOf(event.id);
+        YearMonth from = monthOfId.get(event.id);
+
+        index(event, to);
+        journal.appendPut(event, from, to);
+    }
+
+    private void index(Event event, YearMonth month) {
+        events.put(event.id, event);
+        monthOfId.put(event.id, month);
+        dayIndex.remove(event.id);
+        dayIndex.add(event);
+        intervalIndex = null;
+    }
+
+    /**
+     * Loads the month an id was last seen in, if it is known and not loaded yet.
+     */
+    private void loadMonthOf(String id) {
+        YearMonth month = monthOfId.get(id);
+        if (month != null) {
+            ensureLoaded(month);
+        }
+    }
+
+    private void ensureLoaded(LocalDate from, LocalDate toExclusive) {
+        if (!toExclusive.isAfter(from)) return;
+        YearMonth last = YearMonth.from(toExclusive.minusDays(1));
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(last); month = month.plusMonths(1)) {
+            ensureLoaded(month);
+        }
+    }
+
+    private void ensureLoaded(YearMonth month) {
+        if (!loadedMonths.add(month)) return;
+        for (Event e : journal.loadMonth(month)) {
+            // An id already in memory was written this session and is newer than disk.
+            if (!events.containsKey(e.id)) {
+                index(e, month);
+            }
+        }
+    }
+
+    /**
+     * Moves events saved by older versions under the "event_data" preference into the
+     * month shards. Runs once; the preference is cleared afterwards.
+     */
+    private void migrateLegacyBlob(SharedPreferences prefs) {
+        String json = prefs.getString(LEGACY_PREF_KEY, null);
+        if (json == null) return;
+
+        if (journal.isEmpty()) {
+            ArrayList<Event> legacy = new ArrayList<>();
+            try {
+                Type type = new TypeToken<ArrayList<Event>>() {}.getType();
+                ArrayList<Event> stored = gson.fromJson(json, type);
+                if (stored != null) {
+                    for (Event e : stored) {
+                        if (e == null) continue;
+                        if (e.id == null) {
+                            e.id = UUID.randomUUID().toString();
+                        }
+                        legacy.add(e);
+                    }
+                }
+                journal.writeAll(legacy);
+            } catch (IOException | JsonParseException e) {
+                Log.e(TAG, "Legacy event migration failed, keeping preference", e);
+                return;
+            }
+        }
+        prefs.edit().remove(LEGACY_PREF_KEY).apply();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Streaming Gson adapter for {@link Event}.
+ *
+ * Dates are written as epoch-millis numbers and null fields are left out. Older data
+ * wrote dates with Gson's default locale-dependent text format; those strings are
+ * still accepted when reading, so existing files load without a migration.
+ */
+class EventTypeAdapter extends TypeAdapter<Event> {
+    private final TypeAdapter<Date> legacyDateAdapter = new Gson().getAdapter(Date.class);
+
+    @Override
+    public void write(JsonWriter out, Event event) throws IOException {
+        if (event == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "id", event.id);
+        writeString(out, "title", event.title);
+        writeString(out, "description", event.description);
+        writeDate(out, "date", event.date);
+        writeDate(out, "startTime", event.startTime);
+        writeDate(out, "endTime", event.endTime);
+        writeString(out, "type", event.type);
+        writeString(out, "location", event.location);
+        out.endObject();
+    }
+
+    @Override
+    public Event read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Event event = new Event();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id": event.id = in.nextString(); break;
+                case "title": event.title = in.nextString(); break;
+                case "description": event.description = in.nextString(); break;
+                case "date": event.date = readDate(in); break;
+                case "startTime": event.startTime = readDate(in); break;
+                case "endTime": event.endTime = readDate(in); break;
+                case "type": event.type = in.nextString(); break;
+                case "location": event.location = in.nextString(); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return event;
+    }
+
+    private Date readDate(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NUMBER) {
+            return new Date(in.nextLong());
+        }
+        return legacyDateAdapter.read(in);
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static void writeDate(JsonWriter out, String name, Date value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value.getTime());
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.timecast.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.timecast.Event;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer in front of the storage backend.
+ *
+ * Saves and deletes are held in memory keyed by event id, so dragging the same event
+ * around several times leaves a single pending write. The buffer is handed to the
+ * backend as one {@link EventRepository#applyBatch batch} once no write has arrived for
+ * {@link #QUIET_PERIOD_MS}, or straight away when {@link #flush()} is called.
+ *
+ * Reads take a copy of the pending writes, query the backend without holding the
+ * buffer's lock and then apply the copy on top, so callers always see their own changes
+ * and a slow query never holds up a write. While a batch is being written it stays
+ * visible in the same way until the backend has it. A batch the backend fails to store
+ * goes back into the buffer, behind any newer writes to the same events, and is retried
+ * after {@link #RETRY_DELAY_MS}.
+ *
+ * {@link WriteListener}s hear about every batch once the backend has stored it.
+ */
+public class EventWriteBuffer implements EventRepository {
+    private static final String TAG = "EventWriteBuffer";
+    private static final long QUIET_PERIOD_MS = 750;
+    private static final long RETRY_DELAY_MS = 5000;
+
+    private static EventWriteBuffer instance;
+
+    public interface WriteListener {
+        /**
+         * Called on the flusher thread after a batch has been stored.
+         */
+        void onEventsWritten(Collection<Event> saved, Collection<String> deletedIds);
+    }
+
+    private final EventRepository backend;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+
+    /** Latest unflushed write per id, oldest first; a null value is a pending delete. */
+    private final LinkedHashMap<String, Event> pending = new LinkedHashMap<>();
+    /** The batch currently being written to the backend, in the same form. */
+    private final LinkedHashMap<String, Event> inFlight = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private final List<WriteListener> writeListeners = new CopyOnWriteArrayList<>();
+
+    private EventWriteBuffer(EventRepository backend) {
+        this.backend = backend;
+    }
+
+    public static synchronized EventWriteBuffer getInstance(Context context) {
+        if (instance == null) {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            EventRepository backend = prefs.getBoolean(SQLITE_STORAGE_PREF_KEY, false)
+                    ? SqliteEventRepository.getInstance(context)
+                    : EventStore.getInstance(context);
+            instance = new EventWriteBuffer(backend);
+        }
+        return instance;
+    }
+
+    @Override
+    public Event findById(String id) {
+        if (id == null) return null;
+        synchronized (this) {
+            if (pending.containsKey(id)) return pending.get(id);
+            if (inFlight.containsKey(id)) return inFlight.get(id);
+        }
+        return backend.findById(id);
+    }
+
+    @Override
+    public List<Event> eventsOn(LocalDate day) {
+        Map<String, Event> overlay = overlay();
+        return overlayRange(backend.eventsOn(day), overlay, day.toEpochDay(), day.toEpochDay() + 1);
+    }
+
+    @Override
+    public List<Event> eventsBetween(LocalDate from, LocalDate toExclusive) {
+        Map<String, Event> overlay = overlay();
+        return overlayRange(backend.eventsBetween(from, toExclusive), overlay,
+                from.toEpochDay(), toExclusive.toEpochDay());
+    }
+
+    @Override
+    public List<Event> eventsIn(YearMonth month) {
+        return eventsBetween(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    @Override
+    public List<Event> findConflicts(Date start, Date end, String ignoreId) {
+        Map<String, Event> overlay = overlay();
+        List<Event> result = withoutOverlaid(backend.findConflicts(start, end, ignoreId), overlay);
+        for (Event event : overlay.values()) {
+            if (event == null || event.startTime == null || event.endTime == null) continue;
+            if (event.id.equals(ignoreId)) continue;
+            if (event.startTime.getTime() < end.getTime() && event.endTime.getTime() > start.getTime()) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asks the backend for enough extra rows to make up for stored events that a
+     * buffered write replaces, then merges the buffered events into the page.
+     */
+    @Override
+    public List<Event> eventsAfter(long startMillis, String id, int limit) {
+        Map<String, Event> overlay = overlay();
+        List<Event> page = backend.eventsAfter(startMillis, id, limit + overlay.size());
+        if (overlay.isEmpty()) return page;
+
+        List<Event> result = withoutOverlaid(page, overlay);
+        for (Event event : overlay.values()) {
+            if (event != null && event.startTime != null && EventIndex.compareToKey(event, startMillis, id) > 0) {
+                result.add(event);
+            }
+        }
+        result.sort(EventIndex.BY_START);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    @Override
+    public List<Event> eventsBefore(long startMillis, String id, int limit) {
+        Map<String, Event> overlay = overlay();
+        List<Event> page = backend.eventsBefore(startMillis, id, limit + overlay.size());
+        if (overlay.isEmpty()) return page;
+
+        List<Event> result = withoutOverlaid(page, overlay);
+        for (Event event : overlay.values()) {
+            if (event != null && event.startTime != null && EventIndex.compareToKey(event, startMillis, id) < 0) {
+                result.add(event);
+            }
+        }
+        result.sort(EventIndex.BY_START);
+        return result.size() > limit ? new ArrayList<>(result.subList(result.size() - limit, result.size())) : result;
+    }
+
+    @Override
+    public synchronized void add(Event event) {
+        if (event.id == null) {
+            event.id = UUID.randomUUID().toString();
+        }
+        enqueue(event.id, event);
+    }
+
+    @Override
+    public synchronized void save(Event event) {
+        add(event);
+    }
+
+    @Override
+    public boolean delete(String id) {
+        if (findById(id) == null) return false;
+        synchronized (this) {
+            enqueue(id, null);
+        }
+        return true;
+    }
+
+    /**
+     * Buffers every write without checking that deleted ids exist; backends ignore
+     * deletes of unknown ids.
+     */
+    @Override
+    public synchronized void applyBatch(Collection<Event> saved, Collection<String> deletedIds) {
+        for (Event event : saved) {
+            add(event);
+        }
+        for (String id : deletedIds) {
+            if (id != null) enqueue(id, null);
+        }
+    }
+
+    public void addWriteListener(WriteListener listener) {
+        writeListeners.add(listener);
+    }
+
+    /**
+     * Hands pending writes to the backend now, on the flusher thread.
+     */
+    @Override
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = flusher.schedule(this::writePending, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void enqueue(String id, Event event) {
+        // Re-insert so the newest write for an id is applied last.
+        pending.remove(id);
+        pending.put(id, event);
+        scheduleFlush(QUIET_PERIOD_MS);
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = flusher.schedule(this::writePending, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs on the flusher thread. The backend call happens without holding this
+     * buffer's lock, so reads and new writes are not blocked by storage I/O.
+     */
+    private void writePending() {
+        ArrayList<Event> saved = new ArrayList<>();
+        ArrayList<String> deletedIds = new ArrayList<>();
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            inFlight.putAll(pending);
+            pending.clear();
+            for (Map.Entry<String, Event> entry : inFlight.entrySet()) {
+                if (entry.getValue() != null) {
+                    saved.add(entry.getValue());
+                } else {
+                    deletedIds.add(entry.getKey());
+                }
+            }
+        }
+
+        try {
+            backend.applyBatch(saved, deletedIds);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to write " + (saved.size() + deletedIds.size()) + " buffered changes, will retry", e);
+            synchronized (this) {
+                requeueInFlight();
+            }
+            return;
+        }
+        synchronized (this) {
+            inFlight.clear();
+        }
+        for (WriteListener listener : writeListeners) {
+            listener.onEventsWritten(saved, deletedIds);
+        }
+    }
+
+    /**
+     * Puts a batch the backend rejected back in front of the pending writes, keeping any
+     * newer write to the same id, and schedules another attempt.
+     */
+    private void requeueInFlight() {
+        LinkedHashMap<String, Event> retry = new LinkedHashMap<>();
+        for (Map.Entry<String, Event> entry : inFlight.entrySet()) {
+            if (!pending.containsKey(entry.getKey())) {
+                retry.put(entry.getKey(), entry.getValue());
+            }
+        }
+        retry.putAll(pending);
+        pending.clear();
+        pending.putAll(retry);
+        inFlight.clear();
+        scheduleFlush(RETRY_DELAY_MS);
+    }
+
+    /**
+     * Taken before querying the backend: a write that reaches the backend during the
+     * query is then either in the copy or in the query result, never in neither.
+     *
+     * @return a copy of the in-flight and pending writes merged, newest per id
+     */
+    private synchronized Map<String, Event> overlay() {
+        if (pending.isEmpty() && inFlight.isEmpty()) return Collections.emptyMap();
+        LinkedHashMap<String, Event> merged = new LinkedHashMap<>(inFlight);
+        merged.putAll(pending);
+        return merged;
+    }
+
+    /**
+     * Replaces stored events that have a buffered write and adds buffered events dated
+     * in [fromEpochDay, toEpochDay).
+     */
+    private static List<Event> overlayRange(List<Event> stored, Map<String, Event> overlay,
+                                            long fromEpochDay, long toEpochDay) {
+        if (overlay.isEmpty()) return stored;
+
+        List<Event> result = withoutOverlaid(stored, overlay);
+        for (Event event : overlay.values()) {
+            if (event == null || event.date == null) continue;
+            long day = EventIndex.epochDay(event.date);
+            if (day >= fromEpochDay && day < toEpochDay) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static List<Event> withoutOverlaid(List<Event> stored, Map<String, Event> overlay) {
+        ArrayList<Event> result = new ArrayList<>(stored);
+        if (overlay.isEmpty()) return result;
+        Iterator<Event> it = result.iterator();
+        while (it.hasNext()) {
+            if (overlay.containsKey(it.next().id)) {
+                it.remove();
+            }
+        }
+        return result;
+    }
+}
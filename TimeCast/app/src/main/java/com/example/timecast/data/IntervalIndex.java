@@ -0,0 +1,80 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Static interval index over event [startTime, endTime) ranges.
+ *
+ * Events are kept in arrays sorted by start time. The arrays are treated as an
+ * implicit balanced tree (the middle of every range is its root) and each root stores
+ * the largest end time in its range. An overlap query can then skip whole ranges that
+ * end too early or start too late, so it runs in O(log n + k) for k results.
+ *
+ * The index is immutable; {@link EventStore} rebuilds it after writes.
+ */
+class IntervalIndex {
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final Event[] events;
+
+    IntervalIndex(Collection<Event> source) {
+        ArrayList<Event> valid = new ArrayList<>(source.size());
+        for (Event e : source) {
+            if (e.startTime != null && e.endTime != null) {
+                valid.add(e);
+            }
+        }
+        events = valid.toArray(new Event[0]);
+        Arrays.sort(events, (a, b) -> Long.compare(a.startTime.getTime(), b.startTime.getTime()));
+
+        int n = events.length;
+        starts = new long[n];
+        ends = new long[n];
+        maxEnds = new long[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = events[i].startTime.getTime();
+            ends[i] = events[i].endTime.getTime();
+        }
+        buildMaxEnds(0, n);
+    }
+
+    private long buildMaxEnds(int lo, int hi) {
+        if (lo >= hi) return Long.MIN_VALUE;
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    /**
+     * @param ignoreId id of an event to leave out, e.g. the one being moved; may be null
+     * @return events whose range overlaps [start, end), in start order
+     */
+    List<Event> findOverlaps(long start, long end, String ignoreId) {
+        ArrayList<Event> result = new ArrayList<>();
+        if (end > start) {
+            collect(0, events.length, start, end, ignoreId, result);
+        }
+        return result;
+    }
+
+    private void collect(int lo, int hi, long start, long end, String ignoreId, List<Event> out) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (maxEnds[mid] <= start) return;
+
+        collect(lo, mid, start, end, ignoreId, out);
+        if (starts[mid] >= end) return;
+
+        if (ends[mid] > start && (ignoreId == null || !ignoreId.equals(events[mid].id))) {
+            out.add(events[mid]);
+        }
+        collect(mid + 1, hi, start, end, ignoreId, out);
+    }
+}
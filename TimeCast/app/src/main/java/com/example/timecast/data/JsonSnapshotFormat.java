@@ -0,0 +1,58 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Snapshot stored as a single JSON array of events.
+ */
+class JsonSnapshotFormat implements SnapshotFormat {
+    private final Gson gson;
+
+    JsonSnapshotFormat(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public String extension() {
+        return ".json";
+    }
+
+    @Override
+    public void write(File file, Collection<Event> events) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            gson.toJson(events, writer);
+        }
+    }
+
+    @Override
+    public List<Event> read(File file) throws IOException {
+        Type type = new TypeToken<ArrayList<Event>>() {}.getType();
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            ArrayList<Event> stored = gson.fromJson(reader, type);
+            return stored == null ? new ArrayList<>() : stored;
+        } catch (JsonParseException e) {
+            throw new IOException("Corrupt snapshot " + file.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * On-disk encoding of an {@link EventJournal} snapshot shard.
+ */
+interface SnapshotFormat {
+    /**
+     * @return file name suffix for shards in this format, including the dot
+     */
+    String extension();
+
+    void write(File file, Collection<Event> events) throws IOException;
+
+    List<Event> read(File file) throws IOException;
+
+    /**
+     * Reads only the events whose {@link Event#date} falls in [fromMillis, toMillis).
+     *
+     * @return the events, or null if this format can only be read whole
+     */
+    default List<Event> readRange(File file, long fromMillis, long toMillis) throws IOException {
+        return null;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.timecast.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.timecast.Event;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.timecast.data.EventDatabase.COLUMNS;
+import static com.example.timecast.data.EventDatabase.COL_DATE;
+import static com.example.timecast.data.EventDatabase.COL_DESCRIPTION;
+import static com.example.timecast.data.EventDatabase.COL_END;
+import static com.example.timecast.data.EventDatabase.COL_EPOCH_DAY;
+import static com.example.timecast.data.EventDatabase.COL_ID;
+import static com.example.timecast.data.EventDatabase.COL_LOCATION;
+import static com.example.timecast.data.EventDatabase.COL_START;
+import static com.example.timecast.data.EventDatabase.COL_TITLE;
+import static com.example.timecast.data.EventDatabase.COL_TYPE;
+import static com.example.timecast.data.EventDatabase.TABLE;
+
+/**
+ * {@link EventRepository} backed by the platform SQLite database.
+ *
+ * Writes go through precompiled insert, update and delete statements, and every read
+ * is a single indexed query. Day, week and month views filter on epoch_day in SQL, so
+ * nothing outside the requested range is loaded.
+ *
+ * On first use, events from the legacy "event_data" preference and from the
+ * file-backed {@link EventStore} shards are imported in one transaction. The legacy
+ * blob is streamed event by event rather than parsed into one list.
+ */
+public class SqliteEventRepository implements EventRepository {
+    private static final String TAG = "SqliteEventRepository";
+    private static final String LEGACY_PREF_KEY = "event_data";
+    private static final String MIGRATED_PREF_KEY = "sqlite_events_migrated";
+
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM " + TABLE;
+    private static final String ORDER = " ORDER BY " + COL_START;
+
+    private static SqliteEventRepository instance;
+
+    private final SQLiteDatabase db;
+    private final SQLiteStatement insertStatement;
+    private final SQLiteStatement updateStatement;
+    private final SQLiteStatement deleteStatement;
+
+    private SqliteEventRepository(Context context) {
+        db = new EventDatabase(context).getWritableDatabase();
+        insertStatement = db.compileStatement("INSERT OR REPLACE INTO " + TABLE
+                + " (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        updateStatement = db.compileStatement("UPDATE " + TABLE + " SET "
+                + COL_TITLE + " = ?, " + COL_DESCRIPTION + " = ?, " + COL_DATE + " = ?, "
+                + COL_START + " = ?, " + COL_END + " = ?, " + COL_EPOCH_DAY + " = ?, "
+                + COL_TYPE + " = ?, " + COL_LOCATION + " = ? WHERE " + COL_ID + " = ?");
+        deleteStatement = db.compileStatement("DELETE FROM " + TABLE + " WHERE " + COL_ID + " = ?");
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(MIGRATED_PREF_KEY, false)) {
+            migrate(context, prefs);
+        }
+    }
+
+    public static synchronized SqliteEventRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new SqliteEventRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public synchronized Event findById(String id) {
+        if (id == null) return null;
+        List<Event> result = query(SELECT + " WHERE " + COL_ID + " = ?", id);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    @Override
+    public synchronized List<Event> eventsOn(LocalDate day) {
+        return query(SELECT + " WHERE " + COL_EPOCH_DAY + " = ?" + ORDER,
+                String.valueOf(day.toEpochDay()));
+    }
+
+    @Override
+    public synchronized List<Event> eventsBetween(LocalDate from, LocalDate toExclusive) {
+        return query(SELECT + " WHERE " + COL_EPOCH_DAY + " >= ? AND " + COL_EPOCH_DAY + " < ?" + ORDER,
+                String.valueOf(from.toEpochDay()), String.valueOf(toExclusive.toEpochDay()));
+    }
+
+    @Override
+    public synchronized List<Event> eventsIn(YearMonth month) {
+        return eventsBetween(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    @Override
+    public synchronized List<Event> findConflicts(Date start, Date end, String ignoreId) {
+        // Bounding by day lets the epoch_day index narrow the scan; an event dated the
+        // day before can still run into this range.
+        long firstDay = EventIndex.epochDay(start) - 1;
+        long lastDay = EventIndex.epochDay(end);
+        return query(SELECT + " WHERE " + COL_EPOCH_DAY + " BETWEEN ? AND ?"
+                        + " AND " + COL_START + " < ? AND " + COL_END + " > ?"
+                        + " AND " + COL_ID + " != ?" + ORDER,
+                String.valueOf(firstDay), String.valueOf(lastDay),
+                String.valueOf(end.getTime()), String.valueOf(start.getTime()),
+                ignoreId == null ? "" : ignoreId);
+    }
+
+    @Override
+    public synchronized List<Event> eventsAfter(long startMillis, String id, int limit) {
+        String start = String.valueOf(startMillis);
+        return query(SELECT + " WHERE " + COL_START + " >= ? AND (" + COL_START + " > ? OR " + COL_ID + " > ?)"
+                        + " ORDER BY " + COL_START + ", " + COL_ID + " LIMIT ?",
+                start, start, id, String.valueOf(limit));
+    }
+
+    @Override
+    public synchronized List<Event> eventsBefore(long startMillis, String id, int limit) {
+        String start = String.valueOf(startMillis);
+        List<Event> page = query(SELECT + " WHERE " + COL_START + " <= ? AND (" + COL_START + " < ? OR " + COL_ID + " < ?)"
+                        + " ORDER BY " + COL_START + " DESC, " + COL_ID + " DESC LIMIT ?",
+                start, start, id, String.valueOf(limit));
+        Collections.reverse(page);
+        return page;
+    }
+
+    @Override
+    public synchronized void add(Event event) {
+        if (event.id == null) {
+            event.id = UUID.randomUUID().toString();
+        }
+        insert(event);
+    }
+
+    @Override
+    public synchronized void save(Event event) {
+        if (event.id == null) {
+            add(event);
+            return;
+        }
+        bindFields(updateStatement, event, 1);
+        updateStatement.bindString(9, event.id);
+        if (updateStatement.executeUpdateDelete() == 0) {
+            insert(event);
+        }
+    }
+
+    @Override
+    public synchronized boolean delete(String id) {
+        if (id == null) return false;
+        deleteStatement.bindString(1, id);
+        return deleteStatement.executeUpdateDelete() > 0;
+    }
+
+    /**
+     * Runs all writes in one transaction.
+     */
+    @Override
+    public synchronized void applyBatch(Collection<Event> saved, Collection<String> deletedIds) {
+        db.beginTransaction();
+        try {
+            for (Event event : saved) {
+                save(event);
+            }
+            for (String id : deletedIds) {
+                delete(id);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void insert(Event event) {
+        insertStatement.bindString(1, event.id);
+        bindFields(insertStatement, event, 2);
+        insertStatement.executeInsert();
+    }
+
+    /**
+     * Binds every column except id, starting at the given index, in schema order.
+     */
+    private static void bindFields(SQLiteStatement statement, Event event, int index) {
+        bindText(statement, index, event.title);
+        bindText(statement, index + 1, event.description);
+        bindDate(statement, index + 2, event.date);
+        bindDate(statement, index + 3, event.startTime);
+        bindDate(statement, index + 4, event.endTime);
+        if (event.date != null) {
+            statement.bindLong(index + 5, EventIndex.epochDay(event.date));
+        } else {
+            statement.bindNull(index + 5);
+        }
+        bindText(statement, index + 6, event.type);
+        bindText(statement, index + 7, event.location);
+    }
+
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static void bindDate(SQLiteStatement statement, int index, Date value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value.getTime());
+        }
+    }
+
+    private List<Event> query(String sql, String... args) {
+        ArrayList<Event> events = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                events.add(fromCursor(cursor));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Reads the current row; columns must be in {@link EventDatabase#COLUMNS} order.
+     */
+    static Event fromCursor(Cursor cursor) {
+        Event event = new Event();
+        event.id = cursor.getString(0);
+        event.title = cursor.getString(1);
+        event.description = cursor.getString(2);
+        event.date = cursor.isNull(3) ? null : new Date(cursor.getLong(3));
+        event.startTime = cursor.isNull(4) ? null : new Date(cursor.getLong(4));
+        event.endTime = cursor.isNull(5) ? null : new Date(cursor.getLong(5));
+        event.type = cursor.getString(7);
+        event.location = cursor.getString(8);
+        return event;
+    }
+
+    private void migrate(Context context, SharedPreferences prefs) {
+        Gson gson = EventGson.get();
+        String legacy = prefs.getString(LEGACY_PREF_KEY, null);
+
+        db.beginTransaction();
+        try {
+            if (legacy != null) {
+                TypeAdapter<Event> adapter = gson.getAdapter(Event.class);
+                try (JsonReader reader = new JsonReader(new StringReader(legacy))) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Event event = adapter.read(reader);
+                        if (event != null) add(event);
+                    }
+                    reader.endArray();
+                }
+            }
+
+            EventJournal journal = new EventJournal(context.getFilesDir(), gson,
+                    new JsonSnapshotFormat(gson), new BinaryEventFile());
+            try {
+                journal.open();
+                for (YearMonth month : journal.storedMonths()) {
+                    for (Event event : journal.loadMonth(month)) {
+                        insert(event);
+                    }
+                }
+            } finally {
+                journal.close();
+            }
+            db.setTransactionSuccessful();
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            Log.e(TAG, "Event import into SQLite failed, will retry next launch", e);
+            return;
+        } finally {
+            db.endTransaction();
+        }
+
+        prefs.edit()
+                .remove(LEGACY_PREF_KEY)
+                .putBoolean(MIGRATED_PREF_KEY, true)
+                .apply();
+    }
+}
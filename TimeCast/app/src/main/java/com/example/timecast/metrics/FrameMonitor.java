@@ -0,0 +1,58 @@
+package com.example.timecast.metrics;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+/**
+ * Reports every frame an activity's window draws to {@link RenderMetrics}.
+ *
+ * Uses the window's FrameMetrics, delivered on a shared background thread so the UI
+ * thread does no extra work. A frame counts as janky when it takes longer than one
+ * refresh interval of the display. Call {@link #start()} in onResume and
+ * {@link #stop()} in onPause.
+ */
+public final class FrameMonitor implements Window.OnFrameMetricsAvailableListener {
+    private static Handler metricsHandler;
+
+    private final Activity activity;
+    private final long frameBudgetNanos;
+    private boolean started;
+
+    public FrameMonitor(Activity activity) {
+        this.activity = activity;
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        frameBudgetNanos = (long) (1_000_000_000L / Math.max(refreshRate, 1f));
+    }
+
+    public void start() {
+        if (started) return;
+        started = true;
+        activity.getWindow().addOnFrameMetricsAvailableListener(this, handler());
+    }
+
+    public void stop() {
+        if (!started) return;
+        started = false;
+        activity.getWindow().removeOnFrameMetricsAvailableListener(this);
+    }
+
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        // The window's first frame includes inflating the whole screen; it is not jank.
+        if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) return;
+        long total = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        RenderMetrics.frame(total, total > frameBudgetNanos);
+    }
+
+    private static synchronized Handler handler() {
+        if (metricsHandler == null) {
+            HandlerThread thread = new HandlerThread("frame-metrics");
+            thread.start();
+            metricsHandler = new Handler(thread.getLooper());
+        }
+        return metricsHandler;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.timecast.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of durations. Recording only increments a counter, so it can
+ * run on every frame; percentiles are read back at bucket resolution.
+ */
+final class Histogram {
+    private final long bucketNanos;
+    private final int[] counts;
+    private long total;
+    private long max;
+
+    /**
+     * @param bucketNanos width of one bucket
+     * @param buckets     bucket count; longer durations all land in the last one
+     */
+    Histogram(long bucketNanos, int buckets) {
+        this.bucketNanos = bucketNanos;
+        this.counts = new int[buckets];
+    }
+
+    synchronized void record(long nanos) {
+        int bucket = (int) Math.min(counts.length - 1, Math.max(0, nanos) / bucketNanos);
+        counts[bucket]++;
+        total++;
+        max = Math.max(max, nanos);
+    }
+
+    synchronized long count() {
+        return total;
+    }
+
+    synchronized long max() {
+        return max;
+    }
+
+    /**
+     * @param fraction e.g. 0.95 for the 95th percentile
+     * @return the upper edge of the bucket holding that percentile, or 0 if empty
+     */
+    synchronized long percentile(double fraction) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, (bucket + 1) * bucketNanos);
+            }
+        }
+        return max;
+    }
+
+    synchronized void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+}
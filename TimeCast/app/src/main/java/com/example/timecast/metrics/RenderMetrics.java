@@ -0,0 +1,151 @@
+package com.example.timecast.metrics;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Frame times per screen and durations of the render stages behind them.
+ *
+ * {@link FrameMonitor} feeds every frame of the calendar into the histogram of the
+ * screen last passed to {@link #setScreen}. Code that loads, binds or draws a screen
+ * brackets the work with {@link #start()} and {@link #stage}. Both paths only bump a
+ * histogram bucket, so they stay on in release builds; {@link #report()} turns the
+ * histograms into percentile lines for the debug screen and {@link #dump()} logs them.
+ */
+public final class RenderMetrics {
+    private static final String TAG = "RenderMetrics";
+
+    private static final long FRAME_BUCKET_NANOS = 500_000;
+    private static final int FRAME_BUCKETS = 500;
+    private static final long STAGE_BUCKET_NANOS = 100_000;
+    private static final int STAGE_BUCKETS = 1000;
+
+    private static final Map<String, Frames> screens = new LinkedHashMap<>();
+    private static final Map<String, Histogram> stages = new LinkedHashMap<>();
+    private static volatile String screen = "other";
+
+    private RenderMetrics() {
+    }
+
+    /**
+     * Attributes the frames that follow to the named screen.
+     */
+    public static void setScreen(String name) {
+        screen = name;
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time since {@code startNanos}, from {@link #start()}, for a stage
+     * such as "day.load".
+     */
+    public static void stage(String name, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        Histogram histogram;
+        synchronized (RenderMetrics.class) {
+            histogram = stages.get(name);
+            if (histogram == null) {
+                histogram = new Histogram(STAGE_BUCKET_NANOS, STAGE_BUCKETS);
+                stages.put(name, histogram);
+            }
+        }
+        histogram.record(duration);
+    }
+
+    static void frame(long durationNanos, boolean janky) {
+        String name = screen;
+        Frames frames;
+        synchronized (RenderMetrics.class) {
+            frames = screens.get(name);
+            if (frames == null) {
+                frames = new Frames();
+                screens.put(name, frames);
+            }
+        }
+        frames.record(durationNanos, janky);
+    }
+
+    /**
+     * @return one line per screen and per stage with counts and percentiles in ms
+     */
+    public static synchronized String report() {
+        StringBuilder report = new StringBuilder();
+        report.append("Frames\n");
+        for (Map.Entry<String, Frames> entry : screens.entrySet()) {
+            Frames frames = entry.getValue();
+            long count = frames.durations.count();
+            report.append(String.format(Locale.US, "%-8s n=%d jank=%d (%.1f%%) ", entry.getKey(), count,
+                    frames.janky(), count == 0 ? 0 : 100.0 * frames.janky() / count));
+            appendPercentiles(report, frames.durations);
+        }
+        report.append("Stages\n");
+        for (Map.Entry<String, Histogram> entry : stages.entrySet()) {
+            report.append(String.format(Locale.US, "%-12s n=%d ", entry.getKey(), entry.getValue().count()));
+            appendPercentiles(report, entry.getValue());
+        }
+        return report.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder report, Histogram histogram) {
+        report.append(String.format(Locale.US, "p50=%.1f p90=%.1f p99=%.1f max=%.1f\n",
+                millis(histogram.percentile(0.5)), millis(histogram.percentile(0.9)),
+                millis(histogram.percentile(0.99)), millis(histogram.max())));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Writes {@link #report()} to the log.
+     */
+    public static void dump() {
+        for (String line : report().split("\n")) {
+            Log.i(TAG, line);
+        }
+    }
+
+    public static synchronized void reset() {
+        for (Frames frames : screens.values()) {
+            frames.reset();
+        }
+        for (Histogram histogram : stages.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Whether the app was built debuggable, used to offer the stats screen. Read from
+     * the application info since the build does not generate BuildConfig.
+     */
+    public static boolean isDebuggable(Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    private static final class Frames {
+        final Histogram durations = new Histogram(FRAME_BUCKET_NANOS, FRAME_BUCKETS);
+        private long janky;
+
+        synchronized void record(long durationNanos, boolean isJanky) {
+            durations.record(durationNanos);
+            if (isJanky) janky++;
+        }
+
+        synchronized long janky() {
+            return janky;
+        }
+
+        synchronized void reset() {
+            durations.reset();
+            janky = 0;
+        }
+    }
+}
@@ -5,35 +5,56 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.location.Address;
+import android.location.Geocoder;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
 import com.example.timecast.R;
+import com.example.timecast.Event;
 import com.example.timecast.MainActivity;
+import com.example.timecast.TimeFormats;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Service to check events against weather forecasts and provide notifications
  * for weather that might affect outdoor activities.
+ *
+ * {@link #checkEvents} checks many events at once: events are grouped by forecast grid
+ * cell, each cell's forecast is fetched once and every event in it is judged against
+ * that forecast, giving one list of {@link Verdict}s that can feed both the UI and
+ * {@link #sendAlerts}. {@link #checkUpcoming} feeds it the outdoor events that have not
+ * started yet, placed by geocoding their location text.
  */
 public class EventWeatherChecker {
     private static final String CHANNEL_ID = "weather_alerts";
-    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm";
-    private static final SimpleDateFormat SDF = new SimpleDateFormat(DATE_FORMAT, Locale.US);
+    private static final long MAX_FORECAST_DISTANCE_MILLIS = TimeUnit.HOURS.toMillis(3);
+    private static final ExecutorService geocodeExecutor =
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "event-geocoder"));
     
     private final Context context;
     private final WeatherRepository weatherRepository;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     
     public EventWeatherChecker(Context context) {
         this.context = context;
-        this.weatherRepository = WeatherRepository.getInstance();
+        this.weatherRepository = WeatherRepository.getInstance(context);
         createNotificationChannel();
     }
     public void checkWeatherForEvent(long eventId, String eventTitle, String eventDateTime, 
@@ -43,60 +64,154 @@ public class EventWeatherChecker {
             return;
         }
         
-        weatherRepository.getWeatherForecast(latitude, longitude, new WeatherRepository.WeatherCallback() {
-            @Override
-            public void onWeatherFetched(WeatherResponse weatherResponse) {
-                try {
-                    Date eventDate = SDF.parse(eventDateTime);
-                    if (eventDate == null) return;
-                    
-                    int closestHourlyIndex = findClosestForecastIndex(weatherResponse.getHourly().getTime(), eventDate);
-                    if (closestHourlyIndex == -1) return;
-                    
-                    int weatherCode = weatherResponse.getHourly().getWeathercode().get(closestHourlyIndex);
-                    double temperature = weatherResponse.getHourly().getTemperature2m().get(closestHourlyIndex);
-                    int precipProbability = weatherResponse.getHourly().getPrecipitationProbability().get(closestHourlyIndex);
-                    
-                    if (!WeatherUtils.isWeatherSuitableForOutdoorActivity(weatherCode, temperature, precipProbability)) {
-                        sendWeatherAlert(eventId, eventTitle, weatherCode, temperature);
-                    }
-                } catch (ParseException e) {
-                    e.printStackTrace();
-                }
-            }
-            
-            @Override
-            public void onError(String errorMessage) {
-                System.err.println("Weather fetch error: " + errorMessage);
+        long eventTimeMillis;
+        try {
+            eventTimeMillis = TimeFormats.parseForecastTime(eventDateTime);
+        } catch (DateTimeParseException e) {
+            e.printStackTrace();
+            return;
+        }
+        OutdoorEvent event = new OutdoorEvent(eventId, eventTitle, eventTimeMillis, latitude, longitude);
+        checkEvents(Collections.singletonList(event), this::sendAlerts);
+    }
+    
+    /**
+     * Checks the outdoor events among {@code events} that have not started yet in one
+     * {@link #checkEvents} call and alerts about those with unsuitable weather. Each
+     * distinct location is geocoded once, in the background; events without a location
+     * the geocoder can find are skipped.
+     */
+    public void checkUpcoming(List<Event> events) {
+        long now = System.currentTimeMillis();
+        List<Event> upcoming = new ArrayList<>();
+        for (Event event : events) {
+            if ("Outdoor".equals(event.type) && event.startTime != null && event.startTime.getTime() > now
+                    && event.location != null && !event.location.trim().isEmpty()) {
+                upcoming.add(event);
             }
+        }
+        if (upcoming.isEmpty()) {
+            return;
+        }
+        geocodeExecutor.execute(() -> {
+            List<OutdoorEvent> located = locate(upcoming);
+            mainHandler.post(() -> checkEvents(located, this::sendAlerts));
         });
     }
     
     /**
-     * Finds the index of the closest forecast time to the event date
+     * Places events by their location text. Blocks on the geocoder.
      */
-    private int findClosestForecastIndex(List<String> forecastTimes, Date eventDate) {
-        long eventTimeMillis = eventDate.getTime();
-        long closestDiff = Long.MAX_VALUE;
-        int closestIndex = -1;
+    private List<OutdoorEvent> locate(List<Event> events) {
+        Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+        Map<String, Address> places = new HashMap<>();
+        List<OutdoorEvent> located = new ArrayList<>();
+        for (Event event : events) {
+            String location = event.location.trim();
+            if (!places.containsKey(location)) {
+                places.put(location, geocode(geocoder, location));
+            }
+            Address place = places.get(location);
+            if (place != null) {
+                // Alerts are keyed by an int, so the event's string id is hashed.
+                located.add(new OutdoorEvent(event.id.hashCode(), event.title, event.startTime.getTime(),
+                        place.getLatitude(), place.getLongitude()));
+            }
+        }
+        return located;
+    }
+    
+    private static Address geocode(Geocoder geocoder, String location) {
+        try {
+            List<Address> addresses = geocoder.getFromLocationName(location, 1);
+            return addresses != null && !addresses.isEmpty() ? addresses.get(0) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * Judges every event against the forecast for its grid cell, fetching each cell's
+     * forecast once.
+     *
+     * @param listener called on the main thread with one verdict per event, in the order
+     *                 of {@code events}, once every cell has answered
+     */
+    public void checkEvents(List<OutdoorEvent> events, OnCheckCompleteListener listener) {
+        if (events.isEmpty()) {
+            listener.onCheckComplete(Collections.emptyList());
+            return;
+        }
+        
+        Map<String, List<Integer>> cells = new LinkedHashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            OutdoorEvent event = events.get(i);
+            String key = WeatherRepository.cellKey(WeatherRepository.quantize(event.latitude),
+                    WeatherRepository.quantize(event.longitude));
+            List<Integer> cell = cells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells.put(key, cell);
+            }
+            cell.add(i);
+        }
         
-        for (int i = 0; i < forecastTimes.size(); i++) {
-            try {
-                Date forecastDate = SDF.parse(forecastTimes.get(i));
-                if (forecastDate != null) {
-                    long diff = Math.abs(forecastDate.getTime() - eventTimeMillis);
-                    if (diff < closestDiff) {
-                        closestDiff = diff;
-                        closestIndex = i;
+        Verdict[] verdicts = new Verdict[events.size()];
+        int[] remaining = {cells.size()};
+        for (List<Integer> cell : cells.values()) {
+            OutdoorEvent first = events.get(cell.get(0));
+            weatherRepository.getWeatherForecast(first.latitude, first.longitude, new WeatherRepository.WeatherCallback() {
+                @Override
+                public void onWeatherFetched(WeatherResponse weatherResponse) {
+                    Forecast forecast = weatherResponse.getForecast();
+                    for (int index : cell) {
+                        verdicts[index] = judge(events.get(index), forecast);
+                    }
+                    cellDone();
+                }
+                
+                @Override
+                public void onError(String errorMessage) {
+                    System.err.println("Weather fetch error: " + errorMessage);
+                    for (int index : cell) {
+                        verdicts[index] = new Verdict(events.get(index), Verdict.FETCH_FAILED, 0, 0f, 0);
                     }
+                    cellDone();
                 }
-            } catch (ParseException e) {
-                e.printStackTrace();
+                
+                private void cellDone() {
+                    if (--remaining[0] == 0) {
+                        listener.onCheckComplete(Collections.unmodifiableList(Arrays.asList(verdicts)));
+                    }
+                }
+            });
+        }
+    }
+    
+    private static Verdict judge(OutdoorEvent event, Forecast forecast) {
+        // Only use an hour within 3 hours of the event (reasonable forecast accuracy)
+        int index = forecast.indexNearest(event.startMillis, MAX_FORECAST_DISTANCE_MILLIS);
+        if (index == -1) {
+            return new Verdict(event, Verdict.NO_FORECAST, 0, 0f, 0);
+        }
+        int weatherCode = forecast.weatherCodeAt(index);
+        float temperature = forecast.temperatureAt(index);
+        int precipProbability = forecast.precipitationProbabilityAt(index);
+        boolean suitable = WeatherUtils.isWeatherSuitableForOutdoorActivity(weatherCode, temperature, precipProbability);
+        return new Verdict(event, suitable ? Verdict.SUITABLE : Verdict.UNSUITABLE,
+                weatherCode, temperature, precipProbability);
+    }
+    
+    /**
+     * Sends a notification for each event whose verdict is {@link Verdict#UNSUITABLE}.
+     */
+    public void sendAlerts(List<Verdict> verdicts) {
+        for (Verdict verdict : verdicts) {
+            if (verdict.status == Verdict.UNSUITABLE) {
+                sendWeatherAlert(verdict.event.eventId, verdict.event.title, verdict.weatherCode, verdict.temperature);
             }
         }
-        
-        // Only return an index if it's within 3 hours (reasonable forecast accuracy)
-        return (closestDiff <= TimeUnit.HOURS.toMillis(3)) ? closestIndex : -1;
     }
     
     /**
@@ -147,4 +262,53 @@ public class EventWeatherChecker {
             }
         }
     }
-} 
\ No newline at end of file
+
+    public interface OnCheckCompleteListener {
+        void onCheckComplete(List<Verdict> verdicts);
+    }
+    
+    /**
+     * An outdoor event to check: when it starts and where.
+     */
+    public static final class OutdoorEvent {
+        public final long eventId;
+        public final String title;
+        public final long startMillis;
+        public final double latitude;
+        public final double longitude;
+        
+        public OutdoorEvent(long eventId, String title, long startMillis, double latitude, double longitude) {
+            this.eventId = eventId;
+            this.title = title;
+            this.startMillis = startMillis;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+    
+    /**
+     * The outcome for one event. The weather fields hold the forecast hour used and are
+     * only set for {@link #SUITABLE} and {@link #UNSUITABLE}.
+     */
+    public static final class Verdict {
+        public static final int SUITABLE = 0;
+        public static final int UNSUITABLE = 1;
+        /** No forecast hour within 3 hours of the event. */
+        public static final int NO_FORECAST = 2;
+        public static final int FETCH_FAILED = 3;
+        
+        public final OutdoorEvent event;
+        public final int status;
+        public final int weatherCode;
+        public final float temperature;
+        public final int precipitationProbability;
+        
+        Verdict(OutdoorEvent event, int status, int weatherCode, float temperature, int precipitationProbability) {
+            this.event = event;
+            this.status = status;
+            this.weatherCode = weatherCode;
+            this.temperature = temperature;
+            this.precipitationProbability = precipitationProbability;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.timecast.weather;
+
+import com.example.timecast.TimeFormats;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The hourly part of a {@link WeatherResponse} in primitive arrays, built once per
+ * response by {@link WeatherResponse#getForecast()}.
+ *
+ * Times are parsed to epoch millis up front, so looking up the hour nearest an event is
+ * a binary search with no parsing or allocation. Hours the API left incomplete, or
+ * whose time does not parse, are dropped.
+ */
+public final class Forecast {
+    private final long[] times;
+    private final float[] temperatures;
+    private final byte[] weatherCodes;
+    private final byte[] precipitation;
+
+    private Forecast(long[] times, float[] temperatures, byte[] weatherCodes, byte[] precipitation) {
+        this.times = times;
+        this.temperatures = temperatures;
+        this.weatherCodes = weatherCodes;
+        this.precipitation = precipitation;
+    }
+
+    /**
+     * @param utcOffsetSeconds offset of the local times in {@code hourly}
+     */
+    static Forecast from(HourlyData hourly, int utcOffsetSeconds) {
+        List<String> timeList = hourly == null ? null : hourly.getTime();
+        if (timeList == null) {
+            return new Forecast(new long[0], new float[0], new byte[0], new byte[0]);
+        }
+        List<Double> temperatureList = hourly.getTemperature2m();
+        List<Integer> codeList = hourly.getWeathercode();
+        List<Integer> precipitationList = hourly.getPrecipitationProbability();
+        ZoneOffset offset = ZoneOffset.ofTotalSeconds(utcOffsetSeconds);
+
+        int n = timeList.size();
+        long[] times = new long[n];
+        float[] temperatures = new float[n];
+        byte[] weatherCodes = new byte[n];
+        byte[] precipitation = new byte[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            String time = timeList.get(i);
+            Double temperature = valueAt(temperatureList, i);
+            Integer code = valueAt(codeList, i);
+            Integer precipitationProbability = valueAt(precipitationList, i);
+            if (time == null || temperature == null || code == null || precipitationProbability == null) continue;
+
+            try {
+                times[size] = LocalDateTime.parse(time, TimeFormats.FORECAST_TIME).toEpochSecond(offset) * 1000;
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            temperatures[size] = temperature.floatValue();
+            // WMO weather codes run 0-99 and probabilities 0-100, both within a byte.
+            weatherCodes[size] = code.byteValue();
+            precipitation[size] = precipitationProbability.byteValue();
+            size++;
+        }
+        return new Forecast(Arrays.copyOf(times, size), Arrays.copyOf(temperatures, size),
+                Arrays.copyOf(weatherCodes, size), Arrays.copyOf(precipitation, size));
+    }
+
+    private static <T> T valueAt(List<T> list, int index) {
+        return list != null && index < list.size() ? list.get(index) : null;
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * @return the index of the hour nearest {@code timeMillis}, or -1 if none is within
+     *         {@code maxDistanceMillis}
+     */
+    public int indexNearest(long timeMillis, long maxDistanceMillis) {
+        int index = Arrays.binarySearch(times, timeMillis);
+        if (index < 0) {
+            int after = -index - 1;
+            int before = after - 1;
+            if (after == times.length || (before >= 0 && timeMillis - times[before] <= times[after] - timeMillis)) {
+                index = before;
+            } else {
+                index = after;
+            }
+        }
+        if (index < 0 || Math.abs(times[index] - timeMillis) > maxDistanceMillis) return -1;
+        return index;
+    }
+
+    public long timeAt(int index) {
+        return times[index];
+    }
+
+    public float temperatureAt(int index) {
+        return temperatures[index];
+    }
+
+    public int weatherCodeAt(int index) {
+        return weatherCodes[index];
+    }
+
+    public int precipitationProbabilityAt(int index) {
+        return precipitation[index];
+    }
+}
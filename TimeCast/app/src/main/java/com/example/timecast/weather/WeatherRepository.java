@@ -1,50 +1,221 @@
 package com.example.timecast.weather;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
 import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
+/**
+ * Forecasts by location, cached in two levels.
+ *
+ * Coordinates are rounded to a hundredth of a degree (about a kilometre), far
+ * finer than the forecast models, and requested as the rounded point so that nearby
+ * lookups share one entry. Fetched forecasts are kept in a small in-memory LRU until the
+ * next full hour, when the API publishes new hourly data. Below that, OkHttp keeps the
+ * responses on disk with the same lifetime, so a forecast survives a process restart.
+ * {@link #getCacheStats()} reports how often each level answered.
+ *
+ * Lookups for a cell that is already being fetched join that request instead of
+ * starting another, and every waiting callback gets its result. Results are always
+ * posted to the main thread, whichever thread the HTTP client calls back on.
+ */
 public class WeatherRepository {
+    private static final double CELLS_PER_DEGREE = 100;
+    private static final int MEMORY_CACHE_SIZE = 16;
+    private static final long HTTP_CACHE_BYTES = 2 * 1024 * 1024;
+    private static final String HTTP_CACHE_DIR = "weather_http";
+    private static final long FORECAST_UPDATE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
     private static WeatherRepository instance;
     private final WeatherService weatherService;
+    private final Cache httpCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    private WeatherRepository() {
-        weatherService = WeatherService.Creator.create();
+    private final LinkedHashMap<String, CachedForecast> forecasts = new LinkedHashMap<String, CachedForecast>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedForecast> eldest) {
+            return size() > MEMORY_CACHE_SIZE;
+        }
+    };
+    private final HashMap<String, List<WeatherCallback>> inFlight = new HashMap<>();
+    private long memoryHits;
+    private long memoryMisses;
+    private long joinedRequests;
+
+    private WeatherRepository(Context context) {
+        httpCache = new Cache(new File(context.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_BYTES);
+        weatherService = WeatherService.Creator.create(httpCache);
     }
 
-    public static synchronized WeatherRepository getInstance() {
+    public static synchronized WeatherRepository getInstance(Context context) {
         if (instance == null) {
-            instance = new WeatherRepository();
+            instance = new WeatherRepository(context.getApplicationContext());
         }
         return instance;
     }
 
+    /**
+     * Delivers the forecast for the grid cell around the given point on the main thread,
+     * from memory when a current one is held.
+     */
     public void getWeatherForecast(double latitude, double longitude, final WeatherCallback callback) {
+        double cellLatitude = quantize(latitude);
+        double cellLongitude = quantize(longitude);
+        String key = cellKey(cellLatitude, cellLongitude);
+
+        WeatherResponse cached;
+        synchronized (this) {
+            cached = cachedForecast(key);
+            if (cached == null) {
+                List<WeatherCallback> waiting = inFlight.get(key);
+                if (waiting != null) {
+                    waiting.add(callback);
+                    joinedRequests++;
+                    return;
+                }
+                waiting = new ArrayList<>();
+                waiting.add(callback);
+                inFlight.put(key, waiting);
+            }
+        }
+        if (cached != null) {
+            mainHandler.post(() -> callback.onWeatherFetched(cached));
+            return;
+        }
+        fetch(key, cellLatitude, cellLongitude);
+    }
+
+    private void fetch(String key, double cellLatitude, double cellLongitude) {
         String hourlyParams = "temperature_2m,weathercode,precipitation_probability";
         String dailyParams = "weathercode,temperature_2m_max,temperature_2m_min,precipitation_probability_max";
         String timezone = "auto";
 
-        weatherService.getWeatherForecast(latitude, longitude, hourlyParams, dailyParams, timezone)
+        weatherService.getWeatherForecast(cellLatitude, cellLongitude, hourlyParams, dailyParams, timezone)
                 .enqueue(new Callback<WeatherResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<WeatherResponse> call, @NonNull Response<WeatherResponse> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            callback.onWeatherFetched(response.body());
-                        } else {
-                            callback.onError("Failed to fetch weather data");
-                        }
+                        WeatherResponse body = response.isSuccessful() ? response.body() : null;
+                        List<WeatherCallback> waiting = complete(key, body);
+                        mainHandler.post(() -> {
+                            for (WeatherCallback callback : waiting) {
+                                if (body != null) {
+                                    callback.onWeatherFetched(body);
+                                } else {
+                                    callback.onError("Failed to fetch weather data");
+                                }
+                            }
+                        });
                     }
 
                     @Override
                     public void onFailure(@NonNull Call<WeatherResponse> call, @NonNull Throwable t) {
-                        callback.onError(t.getMessage());
+                        List<WeatherCallback> waiting = complete(key, null);
+                        mainHandler.post(() -> {
+                            for (WeatherCallback callback : waiting) {
+                                callback.onError(t.getMessage());
+                            }
+                        });
                     }
                 });
     }
 
+    public synchronized CacheStats getCacheStats() {
+        return new CacheStats(memoryHits, memoryMisses, joinedRequests, httpCache.hitCount(), httpCache.networkCount());
+    }
+
+    /**
+     * Caches a fetched forecast, if there is one, and hands back everyone waiting for it.
+     */
+    private synchronized List<WeatherCallback> complete(String key, WeatherResponse response) {
+        if (response != null) cacheForecast(key, response);
+        return inFlight.remove(key);
+    }
+
+    private synchronized WeatherResponse cachedForecast(String key) {
+        CachedForecast entry = forecasts.get(key);
+        if (entry != null && System.currentTimeMillis() < entry.expiresAt) {
+            memoryHits++;
+            return entry.response;
+        }
+        if (entry != null) forecasts.remove(key);
+        memoryMisses++;
+        return null;
+    }
+
+    private synchronized void cacheForecast(String key, WeatherResponse response) {
+        forecasts.put(key, new CachedForecast(response, nextForecastUpdate(System.currentTimeMillis())));
+    }
+
+    /**
+     * @return when the forecast fetched at {@code nowMillis} is replaced upstream
+     */
+    static long nextForecastUpdate(long nowMillis) {
+        return (nowMillis / FORECAST_UPDATE_MILLIS + 1) * FORECAST_UPDATE_MILLIS;
+    }
+
+    static double quantize(double degrees) {
+        return Math.round(degrees * CELLS_PER_DEGREE) / CELLS_PER_DEGREE;
+    }
+
+    static String cellKey(double cellLatitude, double cellLongitude) {
+        return String.format(Locale.US, "%.2f,%.2f", cellLatitude, cellLongitude);
+    }
+
     public interface WeatherCallback {
         void onWeatherFetched(WeatherResponse weatherResponse);
         void onError(String errorMessage);
     }
-} 
\ No newline at end of file
+
+    private static final class CachedForecast {
+        final WeatherResponse response;
+        final long expiresAt;
+
+        CachedForecast(WeatherResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Counts since the process started. Joined requests are memory misses that waited
+     * on a fetch already under way. HTTP hits are forecasts the disk cache served after
+     * a memory miss; network requests are the ones that went out.
+     */
+    public static final class CacheStats {
+        public final long memoryHits;
+        public final long memoryMisses;
+        public final long joinedRequests;
+        public final int httpHits;
+        public final int networkRequests;
+
+        CacheStats(long memoryHits, long memoryMisses, long joinedRequests, int httpHits, int networkRequests) {
+            this.memoryHits = memoryHits;
+            this.memoryMisses = memoryMisses;
+            this.joinedRequests = joinedRequests;
+            this.httpHits = httpHits;
+            this.networkRequests = networkRequests;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "memory %d hits / %d misses, joined %d, disk %d hits, network %d",
+                    memoryHits, memoryMisses, joinedRequests, httpHits, networkRequests);
+        }
+    }
+}
@@ -6,8 +6,11 @@ public class WeatherResponse {
     private double latitude;
     private double longitude;
     private String timezone;
+    @SerializedName("utc_offset_seconds")
+    private int utcOffsetSeconds;
     private HourlyData hourly;
     private DailyData daily;
+    private transient Forecast forecast;
 
     public double getLatitude() {
         return latitude;
@@ -28,4 +31,14 @@ public class WeatherResponse {
     public DailyData getDaily() {
         return daily;
     }
+
+    /**
+     * @return the hourly data as a {@link Forecast}, converted on first use
+     */
+    public synchronized Forecast getForecast() {
+        if (forecast == null) {
+            forecast = Forecast.from(hourly, utcOffsetSeconds);
+        }
+        return forecast;
+    }
 } 
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.example.timecast.weather;
 
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -19,12 +22,30 @@ public interface WeatherService {
     class Creator {
         private static final String BASE_URL = "https://api.open-meteo.com/v1/";
 
-        public static WeatherService create() {
+        /**
+         * @param cache disk cache for responses; each forecast is kept until the next
+         *              hourly update, whatever the server's headers say
+         */
+        public static WeatherService create(Cache cache) {
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .cache(cache)
+                    .addNetworkInterceptor(chain -> {
+                        Response response = chain.proceed(chain.request());
+                        if (!response.isSuccessful()) return response;
+                        long now = System.currentTimeMillis();
+                        long maxAgeSeconds = (WeatherRepository.nextForecastUpdate(now) - now) / 1000;
+                        return response.newBuilder()
+                                .removeHeader("Pragma")
+                                .header("Cache-Control", "public, max-age=" + maxAgeSeconds)
+                                .build();
+                    })
+                    .build();
             Retrofit retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
+                    .client(client)
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
             return retrofit.create(WeatherService.class);
         }
     }
-} 
\ No newline at end of file
+}
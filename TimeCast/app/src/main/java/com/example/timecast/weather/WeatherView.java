@@ -80,7 +80,7 @@ public class WeatherView extends LinearLayout {
     public void loadWeatherForLocation(double latitude, double longitude) {
         descriptionText.setText("Loading weather...");
         
-        WeatherRepository.getInstance().getWeatherForecast(latitude, longitude, 
+        WeatherRepository.getInstance(getContext()).getWeatherForecast(latitude, longitude, 
                 new WeatherRepository.WeatherCallback() {
                     @Override
                     public void onWeatherFetched(WeatherResponse weatherResponse) {
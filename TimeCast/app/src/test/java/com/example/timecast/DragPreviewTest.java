@@ -0,0 +1,33 @@
+package com.example.timecast;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DragPreviewTest {
+    private static final int FIRST = 8 * 60;
+    private static final int LAST = 20 * 60;
+
+    @Test
+    public void snap_roundsToNearestSlot() {
+        assertEquals(540, DragPreview.snap(547f, 15, FIRST, LAST));
+        assertEquals(555, DragPreview.snap(553f, 15, FIRST, LAST));
+        assertEquals(555, DragPreview.snap(547.5f, 15, FIRST, LAST));
+        assertEquals(545, DragPreview.snap(547f, 5, FIRST, LAST));
+    }
+
+    @Test
+    public void snap_clampsToFirstSlot() {
+        assertEquals(FIRST, DragPreview.snap(400f, 15, FIRST, LAST));
+        assertEquals(FIRST, DragPreview.snap(-30f, 15, FIRST, LAST));
+    }
+
+    @Test
+    public void snap_clampsToLastAlignedSlot() {
+        assertEquals(LAST, DragPreview.snap(1300f, 15, FIRST, LAST));
+        // A 70 minute event may start at 18:50 at the latest, so the last slot is 18:45.
+        assertEquals(1125, DragPreview.snap(1135f, 15, FIRST, LAST - 70));
+        // An event longer than the range stays at the first slot.
+        assertEquals(FIRST, DragPreview.snap(600f, 15, FIRST, FIRST + 5));
+    }
+}
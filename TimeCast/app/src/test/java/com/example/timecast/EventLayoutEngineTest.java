@@ -0,0 +1,161 @@
+package com.example.timecast;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventLayoutEngineTest {
+    private final EventLayoutEngine engine = EventLayoutEngine.getInstance();
+
+    @Test
+    public void layoutDay_separateEventsShareOneColumn() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        EventLayoutEngine.DayLayout layout = engine.layoutDay(day, Arrays.asList(
+                event("a", day, "09:00", "10:00"),
+                event("b", day, "10:00", "11:00")));
+
+        assertArrayEquals(new int[]{540, 600}, layout.startMinute);
+        assertArrayEquals(new int[]{600, 660}, layout.endMinute);
+        assertArrayEquals(new int[]{0, 0}, layout.column);
+        assertArrayEquals(new int[]{1, 1}, layout.columnCount);
+    }
+
+    @Test
+    public void layoutDay_overlapsSplitTheClusterAndReuseFreedColumns() {
+        LocalDate day = LocalDate.of(2024, 3, 5);
+        EventLayoutEngine.DayLayout layout = engine.layoutDay(day, Arrays.asList(
+                event("long", day, "09:00", "12:00"),
+                event("first", day, "09:00", "10:00"),
+                event("second", day, "10:00", "11:00"),
+                event("later", day, "13:00", "14:00")));
+
+        // The longest of the events starting together gets the leftmost column.
+        assertArrayEquals(new int[]{0, 1, 1, 0}, layout.column);
+        assertArrayEquals(new int[]{2, 2, 2, 1}, layout.columnCount);
+    }
+
+    @Test
+    public void layoutDay_chainedOverlapsShareColumnCount() {
+        LocalDate day = LocalDate.of(2024, 3, 6);
+        EventLayoutEngine.DayLayout layout = engine.layoutDay(day, Arrays.asList(
+                event("a", day, "09:00", "10:30"),
+                event("b", day, "10:00", "11:30"),
+                event("c", day, "10:15", "10:45"),
+                event("d", day, "11:00", "12:00")));
+
+        assertArrayEquals(new int[]{0, 1, 2, 0}, layout.column);
+        assertArrayEquals(new int[]{3, 3, 3, 3}, layout.columnCount);
+    }
+
+    @Test
+    public void layoutDay_clampsToTheDayAndSkipsUntimedEvents() {
+        LocalDate day = LocalDate.of(2024, 3, 7);
+        Event untimed = new Event();
+        untimed.id = "untimed";
+        Event overnight = event("overnight", day.minusDays(1), "22:00", "23:00");
+        overnight.endTime = date(day, "02:00");
+        Event lateNight = event("late", day, "23:00", "23:30");
+        lateNight.endTime = date(day.plusDays(1), "01:00");
+
+        EventLayoutEngine.DayLayout layout = engine.layoutDay(day, Arrays.asList(untimed, overnight, lateNight));
+
+        assertEquals(2, layout.size());
+        assertArrayEquals(new int[]{0, 23 * 60}, layout.startMinute);
+        assertArrayEquals(new int[]{120, 24 * 60}, layout.endMinute);
+    }
+
+    @Test
+    public void layoutDay_reusesCachedLayoutUntilEventsChange() {
+        LocalDate day = LocalDate.of(2024, 3, 8);
+        Event event = event("a", day, "09:00", "10:00");
+        EventLayoutEngine.DayLayout first = engine.layoutDay(day, Collections.singletonList(event));
+
+        assertSame(first, engine.layoutDay(day, Collections.singletonList(event.copy())));
+
+        Event moved = event.copy();
+        moved.startTime = date(day, "09:30");
+        EventLayoutEngine.DayLayout second = engine.layoutDay(day, Collections.singletonList(moved));
+        assertNotSame(first, second);
+        assertEquals(570, second.startMinute[0]);
+    }
+
+    @Test
+    public void layoutDay_recomputesAfterTitleOrLocationEdit() {
+        LocalDate day = LocalDate.of(2024, 3, 11);
+        Event event = event("a", day, "09:00", "10:00");
+        event.title = "Run";
+        EventLayoutEngine.DayLayout first = engine.layoutDay(day, Collections.singletonList(event));
+
+        Event renamed = event.copy();
+        renamed.title = "Long run";
+        EventLayoutEngine.DayLayout second = engine.layoutDay(day, Collections.singletonList(renamed));
+        assertNotSame(first, second);
+        assertSame(renamed, second.events[0]);
+
+        Event relocated = renamed.copy();
+        relocated.location = "Park";
+        assertSame(relocated, engine.layoutDay(day, Collections.singletonList(relocated)).events[0]);
+    }
+
+    @Test
+    public void overlaps_checksOtherEventsOnly() {
+        LocalDate day = LocalDate.of(2024, 3, 9);
+        EventLayoutEngine.DayLayout layout = engine.layoutDay(day, Arrays.asList(
+                event("long", day, "08:00", "12:00"),
+                event("short", day, "09:00", "09:30"),
+                event("evening", day, "18:00", "19:00")));
+
+        assertTrue(layout.overlaps(600, 630, null));
+        assertFalse(layout.overlaps(600, 630, "long"));
+        assertFalse(layout.overlaps(720, 1080, null));
+        assertTrue(layout.overlaps(1070, 1090, null));
+        assertFalse(layout.overlaps(1140, 1200, null));
+    }
+
+    @Test
+    public void overlaps_matchesLinearScan() {
+        LocalDate day = LocalDate.of(2024, 3, 10);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int start = 7 * 60 + (i * 37) % (12 * 60);
+            int length = 15 + (i * 53) % 180;
+            events.add(event("e" + i, day, LocalTime.MIN.plusMinutes(start).toString(),
+                    LocalTime.MIN.plusMinutes(Math.min(start + length, 23 * 60)).toString()));
+        }
+        EventLayoutEngine.DayLayout layout = engine.layoutDay(day, events);
+
+        for (int from = 6 * 60; from < 22 * 60; from += 7) {
+            int to = from + 20;
+            boolean expected = false;
+            for (int i = 0; i < layout.size(); i++) {
+                if (!layout.events[i].id.equals("e3")
+                        && layout.startMinute[i] < to && layout.endMinute[i] > from) {
+                    expected = true;
+                }
+            }
+            assertEquals(expected, layout.overlaps(from, to, "e3"));
+        }
+    }
+
+    private static Event event(String id, LocalDate day, String start, String end) {
+        Event event = new Event();
+        event.id = id;
+        event.date = date(day, "00:00");
+        event.startTime = date(day, start);
+        event.endTime = date(day, end);
+        return event;
+    }
+
+    private static Date date(LocalDate day, String time) {
+        return Date.from(day.atTime(LocalTime.parse(time)).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class BinaryEventFileTest {
+    private static final long MINUTE = 60_000L;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("events", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void roundTrip_keepsEveryField() throws IOException {
+        Event event = event(UUID.randomUUID().toString(), 1_000);
+        event.title = "Run";
+        event.description = "Along the river";
+        event.type = "outdoor";
+        event.location = "Park";
+
+        List<Event> read = writeAndRead(event);
+
+        assertEquals(1, read.size());
+        Event copy = read.get(0);
+        assertEquals(event.id, copy.id);
+        assertEquals(event.title, copy.title);
+        assertEquals(event.description, copy.description);
+        assertEquals(event.type, copy.type);
+        assertEquals(event.location, copy.location);
+        assertEquals(event.date, copy.date);
+        assertEquals(event.startTime, copy.startTime);
+        assertEquals(event.endTime, copy.endTime);
+    }
+
+    @Test
+    public void roundTrip_keepsIdsThatAreNotUuids() throws IOException {
+        List<Event> read = writeAndRead(event("legacy-42", 1_000), event("1-2-3-4-5", 2_000));
+
+        assertEquals("legacy-42", read.get(0).id);
+        assertEquals("1-2-3-4-5", read.get(1).id);
+    }
+
+    @Test
+    public void roundTrip_keepsNullsAndSortsByDate() throws IOException {
+        Event later = event(UUID.randomUUID().toString(), 5_000);
+        Event earlier = event(UUID.randomUUID().toString(), 3_000);
+        earlier.startTime = null;
+        earlier.endTime = null;
+
+        List<Event> read = writeAndRead(later, earlier);
+
+        assertEquals(earlier.id, read.get(0).id);
+        assertNull(read.get(0).startTime);
+        assertNull(read.get(0).title);
+        assertNull(read.get(0).type);
+        assertEquals(later.id, read.get(1).id);
+    }
+
+    @Test
+    public void roundTrip_sharesRepeatedStrings() throws IOException {
+        Event first = event(UUID.randomUUID().toString(), 1_000);
+        Event second = event(UUID.randomUUID().toString(), 2_000);
+        first.title = "Standup";
+        second.title = "Standup";
+
+        List<Event> read = writeAndRead(first, second);
+
+        assertEquals("Standup", read.get(0).title);
+        assertEquals("Standup", read.get(1).title);
+    }
+
+    @Test
+    public void readRange_decodesOnlyRowsDatedInRange() throws IOException {
+        BinaryEventFile format = new BinaryEventFile();
+        format.write(file, Arrays.asList(
+                event("d", 4_000), event("a", 1_000), event("c", 3_000),
+                event("b", 2_000), event("b2", 2_000)));
+
+        List<Event> read = format.readRange(file, 2_000 * MINUTE, 4_000 * MINUTE);
+        assertEquals(3, read.size());
+        assertEquals("c", read.get(2).id);
+        assertTrue(Arrays.asList("b", "b2").contains(read.get(0).id));
+
+        // Bounds in between minutes round up, so the start stays inclusive.
+        assertEquals(1, format.readRange(file, 3_000 * MINUTE - 1, 3_000 * MINUTE + 1).size());
+        assertTrue(format.readRange(file, 5_000 * MINUTE, 6_000 * MINUTE).isEmpty());
+        assertTrue(format.readRange(file, 0, 1_000 * MINUTE).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsOtherFiles() throws IOException {
+        Files.write(file.toPath(), "[{\"id\":\"a\",\"title\":\"Run\"}]".getBytes(StandardCharsets.UTF_8));
+        new BinaryEventFile().read(file);
+    }
+
+    private List<Event> writeAndRead(Event... events) throws IOException {
+        BinaryEventFile format = new BinaryEventFile();
+        format.write(file, Arrays.asList(events));
+        return format.read(file);
+    }
+
+    private static Event event(String id, long minutes) {
+        Event event = new Event();
+        event.id = id;
+        event.date = new Date(minutes * MINUTE);
+        event.startTime = new Date(minutes * MINUTE);
+        event.endTime = new Date((minutes + 30) * MINUTE);
+        return event;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class EventTypeAdapterTest {
+    private final Gson gson = EventGson.get();
+
+    @Test
+    public void roundTrip_keepsEveryField() {
+        Event event = new Event("Run", "Along the river", new Date(1_700_000_000_000L),
+                new Date(1_700_003_600_123L), new Date(1_700_007_200_456L), "outdoor", "Park");
+
+        Event copy = gson.fromJson(gson.toJson(event), Event.class);
+
+        assertEquals(event.id, copy.id);
+        assertEquals(event.title, copy.title);
+        assertEquals(event.description, copy.description);
+        assertEquals(event.date, copy.date);
+        assertEquals(event.startTime, copy.startTime);
+        assertEquals(event.endTime, copy.endTime);
+        assertEquals(event.type, copy.type);
+        assertEquals(event.location, copy.location);
+    }
+
+    @Test
+    public void write_usesEpochMillisAndLeavesOutNulls() {
+        Event event = new Event();
+        event.id = "a";
+        event.startTime = new Date(1_700_003_600_123L);
+
+        assertEquals("{\"id\":\"a\",\"startTime\":1700003600123}", gson.toJson(event));
+    }
+
+    @Test
+    public void read_acceptsLegacyDateStrings() {
+        // Whole seconds, since the legacy text format has no milliseconds.
+        Date start = new Date(1_700_003_600_000L);
+        String legacyStart = new Gson().toJson(start);
+
+        Event event = gson.fromJson("{\"id\":\"a\",\"startTime\":" + legacyStart
+                + ",\"endTime\":1700007200000,\"location\":null,\"unknown\":[1,2]}", Event.class);
+
+        assertEquals("a", event.id);
+        assertEquals(start, event.startTime);
+        assertEquals(new Date(1_700_007_200_000L), event.endTime);
+        assertNull(event.location);
+    }
+
+    @Test
+    public void read_null() {
+        assertNull(gson.fromJson("null", Event.class));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.timecast.data;
+
+import com.example.timecast.Event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntervalIndexTest {
+
+    @Test
+    public void findOverlaps_usesHalfOpenRanges() {
+        Event event = event("a", 100, 200);
+        IntervalIndex index = new IntervalIndex(Collections.singletonList(event));
+
+        assertEquals(Collections.singletonList(event), index.findOverlaps(150, 160, null));
+        assertEquals(Collections.singletonList(event), index.findOverlaps(50, 101, null));
+        assertTrue(index.findOverlaps(200, 300, null).isEmpty());
+        assertTrue(index.findOverlaps(0, 100, null).isEmpty());
+    }
+
+    @Test
+    public void findOverlaps_returnsStartOrderAndSkipsIgnoredId() {
+        Event late = event("late", 300, 400);
+        Event early = event("early", 0, 1000);
+        Event middle = event("middle", 200, 350);
+        IntervalIndex index = new IntervalIndex(Arrays.asList(late, early, middle));
+
+        assertEquals(Arrays.asList(early, middle, late), index.findOverlaps(320, 330, null));
+        assertEquals(Arrays.asList(early, late), index.findOverlaps(320, 330, "middle"));
+    }
+
+    @Test
+    public void findOverlaps_ignoresEventsWithoutTimesAndEmptyQueries() {
+        Event untimed = new Event();
+        untimed.id = "untimed";
+        Event timed = event("timed", 0, 100);
+        IntervalIndex index = new IntervalIndex(Arrays.asList(untimed, timed));
+
+        assertEquals(Collections.singletonList(timed), index.findOverlaps(0, 50, null));
+        assertTrue(index.findOverlaps(50, 50, null).isEmpty());
+        assertTrue(new IntervalIndex(Collections.emptyList()).findOverlaps(0, 100, null).isEmpty());
+    }
+
+    @Test
+    public void findOverlaps_matchesLinearScan() {
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long start = random.nextInt(10_000);
+            events.add(event("e" + i, start, start + 1 + random.nextInt(i % 10 == 0 ? 3_000 : 200)));
+        }
+        IntervalIndex index = new IntervalIndex(events);
+
+        for (int q = 0; q < 200; q++) {
+            long start = random.nextInt(11_000) - 500;
+            long end = start + random.nextInt(500);
+            List<Event> expected = new ArrayList<>();
+            for (Event e : events) {
+                if (e.startTime.getTime() < end && e.endTime.getTime() > start) {
+                    expected.add(e);
+                }
+            }
+            List<Event> actual = index.findOverlaps(start, end, null);
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+            for (int i = 1; i < actual.size(); i++) {
+                assertTrue(actual.get(i - 1).startTime.getTime() <= actual.get(i).startTime.getTime());
+            }
+        }
+    }
+
+    private static Event event(String id, long start, long end) {
+        Event event = new Event();
+        event.id = id;
+        event.startTime = new Date(start);
+        event.endTime = new Date(end);
+        return event;
+    }
+}
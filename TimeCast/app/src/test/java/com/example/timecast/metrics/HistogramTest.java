@@ -0,0 +1,57 @@
+package com.example.timecast.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void percentile_isUpperEdgeOfBucket() {
+        Histogram histogram = new Histogram(MS, 100);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(i * MS + MS / 2);
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(50 * MS, histogram.percentile(0.5));
+        assertEquals(95 * MS, histogram.percentile(0.95));
+        assertEquals(1 * MS, histogram.percentile(0));
+    }
+
+    @Test
+    public void percentile_neverExceedsMax() {
+        Histogram histogram = new Histogram(MS, 10);
+        histogram.record(MS / 4);
+
+        assertEquals(MS / 4, histogram.percentile(0.99));
+        assertEquals(MS / 4, histogram.max());
+    }
+
+    @Test
+    public void record_putsLongDurationsInLastBucketAndKeepsMax() {
+        Histogram histogram = new Histogram(MS, 10);
+        histogram.record(2 * MS);
+        histogram.record(500 * MS);
+        histogram.record(-5);
+
+        assertEquals(3, histogram.count());
+        assertEquals(500 * MS, histogram.max());
+        assertEquals(MS, histogram.percentile(0.3));
+        assertEquals(10 * MS, histogram.percentile(1));
+    }
+
+    @Test
+    public void emptyAndReset() {
+        Histogram histogram = new Histogram(MS, 10);
+        assertEquals(0, histogram.percentile(0.5));
+
+        histogram.record(3 * MS);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.timecast.weather;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.*;
+
+public class ForecastTest {
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void from_appliesUtcOffset() {
+        Forecast forecast = forecast(7200, "2024-06-01T10:00");
+
+        assertEquals(1, forecast.size());
+        assertEquals(millis("2024-06-01T08:00"), forecast.timeAt(0));
+    }
+
+    @Test
+    public void from_skipsUnparsableAndIncompleteHours() {
+        Forecast forecast = parse("{\"utc_offset_seconds\":0,\"hourly\":{"
+                + "\"time\":[\"2024-06-01T10:00\",\"not a time\",\"2024-06-01T12:00\",\"2024-06-01T13:00\"],"
+                + "\"temperature_2m\":[10.5,11,12,null],"
+                + "\"weathercode\":[1,2,3,4],"
+                + "\"precipitation_probability\":[5,6,7,8]}}").getForecast();
+
+        assertEquals(2, forecast.size());
+        assertEquals(millis("2024-06-01T10:00"), forecast.timeAt(0));
+        assertEquals(10.5f, forecast.temperatureAt(0), 0f);
+        assertEquals(millis("2024-06-01T12:00"), forecast.timeAt(1));
+        assertEquals(3, forecast.weatherCodeAt(1));
+        assertEquals(7, forecast.precipitationProbabilityAt(1));
+    }
+
+    @Test
+    public void from_withoutHourlyData_isEmpty() {
+        Forecast forecast = parse("{\"utc_offset_seconds\":0}").getForecast();
+
+        assertEquals(0, forecast.size());
+        assertEquals(-1, forecast.indexNearest(0, HOUR));
+    }
+
+    @Test
+    public void indexNearest_picksClosestHour() {
+        Forecast forecast = forecast(0, "2024-06-01T10:00", "2024-06-01T11:00", "2024-06-01T12:00");
+        long ten = millis("2024-06-01T10:00");
+
+        assertEquals(0, forecast.indexNearest(ten, HOUR));
+        assertEquals(1, forecast.indexNearest(ten + HOUR, HOUR));
+        assertEquals(0, forecast.indexNearest(ten + 20 * 60_000L, HOUR));
+        assertEquals(1, forecast.indexNearest(ten + 40 * 60_000L, HOUR));
+        // Halfway between two hours goes to the earlier one.
+        assertEquals(1, forecast.indexNearest(ten + HOUR + HOUR / 2, HOUR));
+    }
+
+    @Test
+    public void indexNearest_outsideMaxDistance_returnsMinusOne() {
+        Forecast forecast = forecast(0, "2024-06-01T10:00", "2024-06-01T11:00");
+        long ten = millis("2024-06-01T10:00");
+
+        assertEquals(0, forecast.indexNearest(ten - HOUR, HOUR));
+        assertEquals(-1, forecast.indexNearest(ten - HOUR - 1, HOUR));
+        assertEquals(1, forecast.indexNearest(ten + 2 * HOUR, HOUR));
+        assertEquals(-1, forecast.indexNearest(ten + 2 * HOUR + 1, HOUR));
+    }
+
+    private static Forecast forecast(int utcOffsetSeconds, String... times) {
+        StringBuilder json = new StringBuilder("{\"utc_offset_seconds\":").append(utcOffsetSeconds)
+                .append(",\"hourly\":{\"time\":[");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < times.length; i++) {
+            if (i > 0) {
+                json.append(',');
+                values.append(',');
+            }
+            json.append('"').append(times[i]).append('"');
+            values.append(i);
+        }
+        json.append("],\"temperature_2m\":[").append(values)
+                .append("],\"weathercode\":[").append(values)
+                .append("],\"precipitation_probability\":[").append(values)
+                .append("]}}");
+        return parse(json.toString()).getForecast();
+    }
+
+    private static WeatherResponse parse(String json) {
+        return new Gson().fromJson(json, WeatherResponse.class);
+    }
+
+    private static long millis(String utcTime) {
+        return LocalDateTime.parse(utcTime).toEpochSecond(ZoneOffset.UTC) * 1000;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.timecast.weather;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class WeatherRepositoryTest {
+
+    @Test
+    public void quantize_roundsToHundredthOfDegree() {
+        assertEquals(48.86, WeatherRepository.quantize(48.8566), 1e-9);
+        assertEquals(2.35, WeatherRepository.quantize(2.3522), 1e-9);
+        assertEquals(-33.87, WeatherRepository.quantize(-33.8688), 1e-9);
+        assertEquals(0.0, WeatherRepository.quantize(0.004), 1e-9);
+    }
+
+    @Test
+    public void cellKey_nearbyPointsShareACell() {
+        String key = WeatherRepository.cellKey(WeatherRepository.quantize(48.8566), WeatherRepository.quantize(2.3522));
+
+        assertEquals("48.86,2.35", key);
+        assertEquals(key, WeatherRepository.cellKey(WeatherRepository.quantize(48.8601), WeatherRepository.quantize(2.3460)));
+        assertNotEquals(key, WeatherRepository.cellKey(WeatherRepository.quantize(48.8700), WeatherRepository.quantize(2.3522)));
+    }
+
+    @Test
+    public void nextForecastUpdate_isNextFullHour() {
+        long quarterPast = Instant.parse("2024-06-01T10:15:30Z").toEpochMilli();
+        long fullHour = Instant.parse("2024-06-01T10:00:00Z").toEpochMilli();
+        long nextHour = Instant.parse("2024-06-01T11:00:00Z").toEpochMilli();
+
+        assertEquals(nextHour, WeatherRepository.nextForecastUpdate(quarterPast));
+        assertEquals(nextHour, WeatherRepository.nextForecastUpdate(fullHour));
+        assertEquals(nextHour, WeatherRepository.nextForecastUpdate(nextHour - 1));
+    }
+}